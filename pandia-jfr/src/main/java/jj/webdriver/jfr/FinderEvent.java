@@ -0,0 +1,46 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A lookup made by the finder, or one of the polls it made while waiting
+ * 
+ * @author jason
+ *
+ */
+@Name("jj.webdriver.Finder")
+@Label("Finder Lookup")
+@Category({"Pandia", "Browser"})
+@Description("A lookup made by the finder, or one of the polls it made while waiting")
+@StackTrace(false)
+public class FinderEvent extends PandiaEvent {
+
+	@Label("Finder")
+	public String finder;
+	
+	@Label("Operation")
+	@Description("find, find all, or poll")
+	public String operation;
+	
+	@Label("Selector")
+	public String selector;
+}
@@ -0,0 +1,142 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.jfr;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.inject.Singleton;
+
+import jj.webdriver.TraceListener;
+
+/**
+ * <p>
+ * Emits a Flight Recorder event for every span Pandia reports, timed from when the work
+ * started to when it finished, on the thread that did the work.  Events are only
+ * filled in when their type is enabled in a recording, so targets aren't described
+ * for nothing.
+ * 
+ * @author jason
+ *
+ */
+@Singleton
+public class JfrTraceListener implements TraceListener {
+	
+	// an event that's been begun, with what it's for, to match up with the finish
+	private static final class Frame {
+		final String category;
+		final String subject;
+		final String operation;
+		// null if the event type wasn't enabled
+		final PandiaEvent event;
+		
+		Frame(String category, String subject, String operation, PandiaEvent event) {
+			this.category = category;
+			this.subject = subject;
+			this.operation = operation;
+			this.event = event;
+		}
+		
+		boolean matches(String category, String subject, String operation) {
+			return this.category.equals(category) && this.subject.equals(subject) && this.operation.equals(operation);
+		}
+	}
+	
+	private static final ThreadLocal<Deque<Frame>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+	
+	private static PandiaEvent event(String category) {
+		switch (category) {
+		case RULE:
+			return new RuleEvent();
+		case GENERATION:
+			return new PanelGenerationEvent();
+		case ACTION:
+			return new PanelActionEvent();
+		case FINDER:
+			return new FinderEvent();
+		default:
+			return null;
+		}
+	}
+	
+	// only worth doing for enabled events, since describing the target can cost something
+	private static void describe(PandiaEvent event, String subject, String operation, Object target) {
+		String describedTarget = target == null ? null : String.valueOf(target);
+		if (event instanceof RuleEvent) {
+			RuleEvent rule = (RuleEvent)event;
+			rule.test = subject;
+			rule.phase = operation;
+		} else if (event instanceof PanelGenerationEvent) {
+			PanelGenerationEvent generation = (PanelGenerationEvent)event;
+			generation.panelInterface = subject;
+			generation.method = describedTarget;
+		} else if (event instanceof PanelActionEvent) {
+			PanelActionEvent action = (PanelActionEvent)event;
+			action.panelInterface = subject;
+			action.action = operation;
+			action.selector = describedTarget;
+		} else if (event instanceof FinderEvent) {
+			FinderEvent finder = (FinderEvent)event;
+			finder.finder = subject;
+			finder.operation = operation;
+			finder.selector = describedTarget;
+		}
+	}
+	
+	@Override
+	public void started(String category, String subject, String operation, Object target) {
+		PandiaEvent event = event(category);
+		if (event != null) {
+			boolean enabled = event.isEnabled();
+			// pushed whether enabled or not, to keep the stack matched with the finishes
+			frames.get().push(new Frame(category, subject, operation, enabled ? event : null));
+			if (enabled) {
+				describe(event, subject, operation, target);
+				event.begin();
+			}
+		}
+	}
+
+	@Override
+	public void finished(String category, String subject, String operation, Object target, long startNanos, long durationNanos, Throwable failure) {
+		Deque<Frame> stack = frames.get();
+		PandiaEvent event;
+		if (!stack.isEmpty() && stack.peek().matches(category, subject, operation)) {
+			event = stack.pop().event;
+			if (event == null) {
+				// wasn't enabled when it started
+				return;
+			}
+		} else {
+			// never started, so all that can be done is to record it now
+			event = event(category);
+			if (event == null || !event.isEnabled()) {
+				return;
+			}
+			describe(event, subject, operation, target);
+			event.begin();
+		}
+		
+		event.end();
+		if (event.shouldCommit()) {
+			if (event instanceof RuleEvent) {
+				((RuleEvent)event).measured = durationNanos;
+			}
+			event.failure = failure == null ? null : String.valueOf(failure);
+			event.commit();
+		}
+	}
+}
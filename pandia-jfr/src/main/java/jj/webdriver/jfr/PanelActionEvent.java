@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An action a panel performed against the browser
+ * 
+ * @author jason
+ *
+ */
+@Name("jj.webdriver.PanelAction")
+@Label("Panel Action")
+@Category({"Pandia", "Browser"})
+@Description("An action a panel performed against the browser, such as a click or a read")
+public class PanelActionEvent extends PandiaEvent {
+
+	@Label("Panel Interface")
+	public String panelInterface;
+	
+	@Label("Action")
+	public String action;
+	
+	@Label("Selector")
+	public String selector;
+}
@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Generating the implementation of a panel interface, or one of its methods
+ * 
+ * @author jason
+ *
+ */
+@Name("jj.webdriver.PanelGeneration")
+@Label("Panel Generation")
+@Category({"Pandia", "Generation"})
+@Description("Generating the implementation of a panel interface, or one of its methods")
+@StackTrace(false)
+public class PanelGenerationEvent extends PandiaEvent {
+
+	@Label("Panel Interface")
+	public String panelInterface;
+	
+	@Label("Method")
+	@Description("The method generated, or null for the whole interface")
+	public String method;
+}
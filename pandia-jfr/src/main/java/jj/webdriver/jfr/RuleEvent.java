@@ -0,0 +1,49 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A phase of the rule running a test
+ * 
+ * @author jason
+ *
+ */
+@Name("jj.webdriver.Rule")
+@Label("Test Phase")
+@Category({"Pandia", "Rule"})
+@Description("A phase of the rule running a test")
+@StackTrace(false)
+public class RuleEvent extends PandiaEvent {
+
+	@Label("Test")
+	public String test;
+	
+	@Label("Phase")
+	public String phase;
+	
+	// some phases are only reported when they finish, after the fact
+	@Label("Measured")
+	@Description("How long the phase took, as measured by the rule")
+	@Timespan(Timespan.NANOSECONDS)
+	public long measured;
+}
@@ -0,0 +1,32 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * <p>
+ * Java Flight Recorder events for Pandia's own work, so recordings of long suite runs
+ * show time spent generating panels, acting on the browser, waiting in the finder and
+ * setting up tests alongside the usual CPU, GC and I/O events.  Configure the rule with
+ * <pre class="brush:java">
+ * new WebDriverRule().traceListener(JfrTraceListener.class)
+ * </pre>
+ * 
+ * <p>
+ * This is a separate artifact from Pandia itself, since it needs a JDK that has Flight
+ * Recorder, which is OpenJDK 8u262 or later, or any JDK from 11.
+ * 
+ * @author jason
+ *
+ */
+package jj.webdriver.jfr;
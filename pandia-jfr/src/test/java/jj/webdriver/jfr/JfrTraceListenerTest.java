@@ -0,0 +1,134 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.jfr;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import jj.webdriver.TraceListener;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author jason
+ *
+ */
+public class JfrTraceListenerTest {
+	
+	@Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	JfrTraceListener listener = new JfrTraceListener();
+	
+	private void span(String category, String subject, String operation, Object target, Throwable failure) throws Exception {
+		listener.started(category, subject, operation, target);
+		long start = System.nanoTime();
+		Thread.sleep(2);
+		listener.finished(category, subject, operation, target, start, System.nanoTime() - start, failure);
+	}
+
+	@Test
+	public void testEvents() throws Exception {
+		
+		Path file = temporaryFolder.getRoot().toPath().resolve("recording.jfr");
+		
+		try (Recording recording = new Recording()) {
+			recording.enable(RuleEvent.class).withoutThreshold();
+			recording.enable(PanelGenerationEvent.class).withoutThreshold();
+			recording.enable(PanelActionEvent.class).withoutThreshold();
+			recording.enable(FinderEvent.class).withoutThreshold();
+			recording.start();
+			
+			// reported after the fact
+			listener.finished(TraceListener.RULE, "testSomething", "set up", null, System.nanoTime() - 5000000, 5000000, null);
+			
+			listener.started(TraceListener.ACTION, "jj.webdriver.pages.TestPage", "click", "By.id: hi");
+			span(TraceListener.FINDER, "jj.webdriver.finder.ImpatientWebElementFinder", "find", "By.id: hi", null);
+			listener.finished(TraceListener.ACTION, "jj.webdriver.pages.TestPage", "click", "By.id: hi", 0, 0, new AssertionError("nope"));
+			
+			span(TraceListener.GENERATION, "jj.webdriver.pages.TestPage", "generate", "clickHi", null);
+			
+			recording.stop();
+			recording.dump(file);
+		}
+		
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+			.filter(event -> event.getEventType().getName().startsWith("jj.webdriver."))
+			.sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+			.collect(Collectors.toList());
+		
+		assertThat(events.size(), is(4));
+		
+		RecordedEvent rule = events.get(0);
+		assertThat(rule.getEventType().getName(), is("jj.webdriver.Rule"));
+		assertThat(rule.getString("phase"), is("set up"));
+		assertThat(rule.getDuration("measured").toMillis(), is(5L));
+		
+		RecordedEvent click = events.get(1);
+		assertThat(click.getEventType().getName(), is("jj.webdriver.PanelAction"));
+		assertThat(click.getString("panelInterface"), is("jj.webdriver.pages.TestPage"));
+		assertThat(click.getString("action"), is("click"));
+		assertThat(click.getString("selector"), is("By.id: hi"));
+		assertThat(click.getString("failure"), is("java.lang.AssertionError: nope"));
+		
+		RecordedEvent find = events.get(2);
+		assertThat(find.getEventType().getName(), is("jj.webdriver.Finder"));
+		assertThat(find.getString("operation"), is("find"));
+		assertThat(find.getString("failure"), is(nullValue()));
+		
+		// the lookup happened during the click
+		assertThat(find.getStartTime(), is(greaterThanOrEqualTo(click.getStartTime())));
+		assertThat(find.getEndTime(), is(lessThanOrEqualTo(click.getEndTime())));
+		
+		RecordedEvent generation = events.get(3);
+		assertThat(generation.getEventType().getName(), is("jj.webdriver.PanelGeneration"));
+		assertThat(generation.getString("method"), is("clickHi"));
+		assertThat(generation.getDuration().toMillis(), is(greaterThanOrEqualTo(2L)));
+	}
+	
+	@Test
+	public void testDisabledEventsAreNotDescribed() throws Exception {
+		
+		Object target = new Object() {
+			@Override
+			public String toString() {
+				throw new AssertionError("described a disabled event");
+			}
+		};
+		
+		try (Recording recording = new Recording()) {
+			recording.enable(PanelActionEvent.class).withoutThreshold();
+			recording.disable(FinderEvent.class);
+			recording.start();
+			
+			// the finder isn't enabled, and the click still matches up around it
+			listener.started(TraceListener.ACTION, "jj.webdriver.pages.TestPage", "click", "By.id: hi");
+			span(TraceListener.FINDER, "jj.webdriver.finder.ImpatientWebElementFinder", "find", target, null);
+			listener.finished(TraceListener.FINDER, "jj.webdriver.finder.ImpatientWebElementFinder", "poll", target, 0, 0, null);
+			listener.finished(TraceListener.ACTION, "jj.webdriver.pages.TestPage", "click", "By.id: hi", 0, 0, null);
+			
+			recording.stop();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Names the attributes or properties to read from the element located by a
+ * Panel method's {@link By}, all of them with a single lookup and, if the
+ * driver supports scripts, a single round trip.
+ * 
+ * <pre class="brush:java">
+ * interface ResultRow extends Panel {
+ * 
+ * 	// read the "href" attribute. without the annotation, the name is
+ * 	// worked out from the method, so readDataUserIdAttribute reads "data-user-id"
+ * 	{@literal @}By(className = "title")
+ * 	{@literal @}Attribute("href")
+ * 	String readLinkAttribute();
+ * 
+ * 	{@literal @}By(className = "title")
+ * 	{@literal @}Attribute({"href", "title", "data-id"})
+ * 	Map&lt;String, String&gt; readLinkDetails();
+ * 
+ * 	// fills in a model, one attribute per field
+ * 	{@literal @}By(className = "title")
+ * 	Link readLink();
+ * }
+ * 
+ * {@literal @}Model
+ * public class Link {
+ * 
+ * 	// the attribute is assumed to be the field name, lowercased and dashed
+ * 	public String href;
+ * 
+ * 	{@literal @}Attribute("data-id")
+ * 	public String id;
+ * }
+ * </pre>
+ * 
+ * <p>
+ * The values are as {@link org.openqa.selenium.WebElement#getAttribute(String)}
+ * would produce them, so properties such as "value" and "checked" reflect the current
+ * state of the element, and absent attributes are null.  Model fields must be public
+ * Strings.
+ * 
+ * @author jason
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.FIELD})
+@Documented
+public @interface Attribute {
+
+	/**
+	 * The names of the attributes. A String method or a model field reads exactly one
+	 */
+	String[] value();
+}
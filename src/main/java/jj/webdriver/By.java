@@ -122,6 +122,16 @@ import java.util.Formatter;
  * Combining these techniques gives a very flexible way to specify
  * methods for interacting with pages.
  * 
+ * <p>
+ * The timeout and poll attributes tune how long the {@link WebElementFinder}
+ * waits for this particular element, and how often it looks, so elements
+ * that render immediately can fail fast and slow ones can be given longer:
+ * 
+ * <pre class="brush:java">
+ * 	{@literal @}By(id = "report", timeout = 30000, poll = 1000)
+ * 	String readReport();
+ * </pre>
+ * 
  * @author jason
  *
  */
@@ -159,4 +169,17 @@ public @interface By {
 	 * @return the value
 	 */
 	String xpath() default "";
+	
+	/**
+	 * how long to wait for the element, in milliseconds. the default leaves it to the finder
+	 * @return the value
+	 */
+	long timeout() default -1;
+	
+	/**
+	 * how often to look for the element while waiting, in milliseconds. the default leaves
+	 * it to the finder
+	 * @return the value
+	 */
+	long poll() default -1;
 }
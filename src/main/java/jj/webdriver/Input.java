@@ -0,0 +1,67 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Chooses how a Panel set method, or a field of a {@link Model}, enters its value,
+ * overriding the rule-wide setting.
+ * 
+ * <pre class="brush:java">
+ * interface ImportPanel extends Panel {
+ * 
+ * 	// kilobytes of JSON, which would take seconds to type
+ * 	{@literal @}By("payload")
+ * 	{@literal @}Input(Input.Mode.ASSIGN)
+ * 	ImportPanel setPayload(String payload);
+ * 
+ * 	// has a keystroke handler that has to see every key
+ * 	{@literal @}By("search")
+ * 	{@literal @}Input(Input.Mode.KEYSTROKES)
+ * 	ImportPanel setSearch(String search);
+ * }
+ * </pre>
+ * 
+ * @author jason
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.FIELD})
+@Documented
+public @interface Input {
+	
+	enum Mode {
+		/**
+		 * Type the value one key at a time, as a user would, with every key event.
+		 */
+		KEYSTROKES,
+		
+		/**
+		 * Append the value to the element in one go, then fire input and change events.
+		 * Much faster for large values, but no key events fire, and limits like
+		 * maxlength aren't applied.  Drivers that can't run scripts type instead.
+		 */
+		ASSIGN
+	}
+
+	Mode value();
+}
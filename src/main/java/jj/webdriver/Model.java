@@ -54,7 +54,7 @@ import java.lang.annotation.Target;
  * 
  * 
  * <p>
- * TODO - once it handles forms, this also becomes the interface for looking up text/attributes from the document
+ * Models can also be read from the attributes of a single element, see {@link Attribute}
  * 
  * @author jason
  *
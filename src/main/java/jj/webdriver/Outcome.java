@@ -0,0 +1,68 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Declares one of the possible results of a Panel method, for flows that can
+ * branch, like a form submission that either succeeds or redisplays the form
+ * with errors.  Every outcome is watched for at once, and the method returns
+ * the first one to appear, so the losing outcomes cost nothing.
+ * 
+ * <pre class="brush:java">
+ * interface SignupPanel extends Panel {
+ * 
+ * 	{@literal @}By("signup-submit")
+ * 	{@literal @}Outcome(value = WelcomePage.class, when = {@literal @}By(id = "welcome"))
+ * 	{@literal @}Outcome(value = SignupErrors.class, when = {@literal @}By(className = "errors"))
+ * 	Panel clickSubmit();
+ * }
+ * </pre>
+ * 
+ * <p>
+ * If the method name starts with "click", the element located by its {@link By}
+ * is clicked first.  Otherwise the method only waits, and needs no {@link By}.
+ * The method must be declared to return a type that every outcome extends,
+ * {@link Panel} at the least.
+ * 
+ * @author jason
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+@Repeatable(Outcomes.class)
+public @interface Outcome {
+
+	/**
+	 * the panel or page to return if this outcome appears first
+	 * @return the value
+	 */
+	Class<? extends Panel> value();
+	
+	/**
+	 * locates an element whose display means this outcome happened
+	 * @return the value
+	 */
+	By when();
+}
@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Groups the {@link Outcome}s of a method.  Repeating {@link Outcome} is
+ * the same thing, this only needs to be written out to change the timeout.
+ * 
+ * @author jason
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface Outcomes {
+
+	/**
+	 * the possible outcomes, in order of preference if several appear together
+	 * @return the value
+	 */
+	Outcome[] value();
+	
+	/**
+	 * how long to wait for any outcome before failing, in milliseconds
+	 * @return the value
+	 */
+	long timeout() default 10000;
+}
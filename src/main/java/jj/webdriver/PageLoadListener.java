@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * <p>
+ * Notified every time a {@link Page} is loaded, which is whenever a page object
+ * is produced, either by {@link WebDriverRule#get(Class, Object...)} or by
+ * navigating from another page object.  Use this to prepare each document,
+ * for instance by installing scripts or styles.
+ * 
+ * <p>
+ * Implementations are configured on the rule with
+ * {@link WebDriverRule#pageLoadListener(Class)}, and are constructed using
+ * Guice, so they can have dependencies injected.
+ * 
+ * @author jason
+ *
+ */
+public interface PageLoadListener {
+
+	/**
+	 * @param webDriver the driver, pointed at the newly loaded page
+	 */
+	void pageLoaded(WebDriver webDriver);
+}
@@ -0,0 +1,83 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Describes how to load more elements for Panel methods that return a
+ * <code>java.util.stream.Stream</code> or <code>java.util.Iterator</code>
+ * of panels or Strings.  Those methods fetch their elements lazily, a window
+ * at a time, and only load the next window when the consumer asks for an
+ * element past the end of the current one.  Stopping the iteration early, for
+ * instance with <code>findFirst()</code> or <code>limit(n)</code>, stops the
+ * loading.
+ * 
+ * <pre class="brush:java">
+ * interface Results extends Panel {
+ * 
+ * 	{@literal @}By(cssSelector = "table.results tr")
+ * 	{@literal @}Paging(next = {@literal @}By(id = "next-page"))
+ * 	Stream&lt;ResultRow&gt; rows();
+ * 
+ * 	{@literal @}By(cssSelector = "ul.feed li")
+ * 	{@literal @}Paging(scroll = true)
+ * 	Iterator&lt;String&gt; readFeed();
+ * }
+ * </pre>
+ * 
+ * <p>
+ * Without this annotation, the stream covers just the elements present in
+ * the document when it is first consumed.
+ * 
+ * @author jason
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface Paging {
+
+	/**
+	 * locates the control that loads the next page of elements when clicked. Paging
+	 * stops when the control is missing, hidden, or disabled.  the default is no control
+	 * @return the value
+	 */
+	By next() default @By;
+	
+	/**
+	 * if true, loads more elements by scrolling the last element into view and waiting for
+	 * new elements to appear after it, for infinite scrolling and virtualized lists that
+	 * append rows. scrolling stops when nothing new appears. requires a driver that
+	 * executes javascript
+	 * @return the value
+	 */
+	boolean scroll() default false;
+	
+	/**
+	 * the most elements to materialize at one time. Strings are read in batches of this size.
+	 * this bounds the panels made and the reads done per batch, not the lookup - every element
+	 * the locator matches on the current page, or after the current scroll, is still found at
+	 * once, so narrow the locator if there are too many of those
+	 * @return the value
+	 */
+	int chunk() default 100;
+}
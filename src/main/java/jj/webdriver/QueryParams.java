@@ -17,57 +17,85 @@ package jj.webdriver;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
-import java.util.ArrayList;
 
 /**
+ * <p>
+ * An immutable set of query string parameters, for use with
+ * {@link WebDriverRule#get(Class, Object...)}.  Names and values are
+ * encoded once, on creation, and every operation returns a new instance,
+ * so instances can be kept in constants and shared between threads.
+ * 
+ * <pre class="brush:java">
+ * static final QueryParams ADMIN = query("role", "admin");
+ * 
+ * webDriverRule.get(UsersPage.class, ADMIN.and("page", "2"));
+ * </pre>
+ * 
  * @author jason
  *
  */
-public class QueryParams {
+public final class QueryParams {
 	
-	private static final class Pair {
-		final String name;
-		final String value;
-		
-		Pair(String name, String value) {
-			try {
-				this.name = URLEncoder.encode(name, "UTF-8");
-				this.value = URLEncoder.encode(value, "UTF-8");
-			} catch (UnsupportedEncodingException uee) {
-				throw new AssertionError(uee); // cant happen
-			} 
+	private static final QueryParams EMPTY = new QueryParams("");
+	
+	private static String encode(String input) {
+		try {
+			return URLEncoder.encode(input, "UTF-8");
+		} catch (UnsupportedEncodingException uee) {
+			throw new AssertionError(uee); // cant happen
 		}
 	}
 	
 	public static QueryParams query(String name, String value) {
-		QueryParams result = new QueryParams();
-		
-		return result.and(name, value);
+		return EMPTY.and(name, value);
+	}
+	
+	/** @return a QueryParams with no parameters */
+	public static QueryParams empty() {
+		return EMPTY;
 	}
 	
-	private final ArrayList<Pair> pairs = new ArrayList<>();
+	private final String encoded;
 
-	private QueryParams() {}
+	private QueryParams(String encoded) {
+		this.encoded = encoded;
+	}
 
 	public QueryParams and(String name, String value) {
-		pairs.add(new Pair(name, value));
-		return this;
+		String pair = encode(name) + "=" + encode(value);
+		return new QueryParams(encoded.isEmpty() ? pair : encoded + "&" + pair);
 	}
 
 	public QueryParams and(QueryParams queryParams) {
-		for (Pair pair : queryParams.pairs) {
-			pairs.add(pair);
+		if (queryParams.isEmpty()) {
+			return this;
 		}
-		return this;
+		if (isEmpty()) {
+			return queryParams;
+		}
+		return new QueryParams(encoded + "&" + queryParams.encoded);
+	}
+	
+	/** @return true if there are no parameters */
+	public boolean isEmpty() {
+		return encoded.isEmpty();
 	}
 	
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof QueryParams && ((QueryParams)obj).encoded.equals(encoded);
+	}
+	
+	@Override
+	public int hashCode() {
+		return encoded.hashCode();
+	}
+	
+	/**
+	 * @return the encoded query string, without a leading '?'. empty if there are no parameters
+	 */
 	@Override
 	public String toString() {
-		StringBuilder sb = new StringBuilder();
-		for (Pair pair : pairs) {
-			sb.append(pair.name).append("=").append(pair.value).append("&");
-		}
-		sb.deleteCharAt(sb.length() - 1);
-		return sb.toString();
+		return encoded;
 	}
 }
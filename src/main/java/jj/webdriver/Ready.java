@@ -0,0 +1,79 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Declares when a {@link Page} or {@link Panel} is ready to be used.  The
+ * condition is awaited once, as the instance is created, and every specified
+ * part of it must hold at the same time.
+ * 
+ * <pre class="brush:java">
+ * {@literal @}URL("/dashboard")
+ * {@literal @}Ready(selector = {@literal @}By(id = "widgets"), script = "window.app &amp;&amp; window.app.started", networkIdle = true)
+ * interface Dashboard extends Page {
+ * 	...
+ * }
+ * </pre>
+ * 
+ * <p>
+ * Once ready, element lookups skip the configured {@link WebElementFinder}
+ * and ask the driver directly, falling back to the finder only when the
+ * element isn't there. Nested panels without their own condition share their
+ * parent's readiness, and it lasts until the next navigation, which produces
+ * a new page instance.  Since a present element is used without waiting for
+ * it to be displayed, the condition should cover anything that renders late.
+ * 
+ * @author jason
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Documented
+public @interface Ready {
+
+	/**
+	 * locates an element that must be present and displayed. on a nested panel, it is
+	 * resolved and looked for the same way as the panel's own lookups. the default is no element
+	 * @return the value
+	 */
+	By selector() default @By;
+	
+	/**
+	 * a javascript expression that must be truthy. the default is no expression
+	 * @return the value
+	 */
+	String script() default "";
+	
+	/**
+	 * if true, requires that no XMLHttpRequest or fetch is outstanding and no new resources
+	 * have loaded for a short quiet period. requires a driver that executes javascript
+	 * @return the value
+	 */
+	boolean networkIdle() default false;
+	
+	/**
+	 * how long to wait for the condition before failing, in milliseconds
+	 * @return the value
+	 */
+	long timeout() default 10000;
+}
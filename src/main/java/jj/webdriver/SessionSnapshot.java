@@ -0,0 +1,163 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * <p>
+ * An immutable capture of the client-side state of a browser session - the
+ * cookies visible to the current page, plus the contents of local and session
+ * storage for its origin.
+ *
+ * <p>
+ * The intended use is to run an expensive set-up flow, such as logging in,
+ * once per suite and then restore the result into each subsequent driver
+ * instead of repeating the flow. See {@link WebDriverRule#withSession(String, Runnable)}
+ *
+ * <p>
+ * Storage is only captured and restored if the driver is a {@link JavascriptExecutor}.
+ *
+ * @author jason
+ *
+ */
+public final class SessionSnapshot {
+
+	private static final String CAPTURE_STORAGE =
+		"function dump(s) {" +
+			"var r = {};" +
+			"try {" +
+				"for (var i = 0; i < s.length; i++) { var k = s.key(i); r[k] = s.getItem(k); }" +
+			"} catch (e) {}" +
+			"return r;" +
+		"}" +
+		"return [dump(window.localStorage), dump(window.sessionStorage)];";
+
+	private static final String RESTORE_STORAGE =
+		"function load(s, d) {" +
+			"try {" +
+				"s.clear();" +
+				"for (var k in d) { s.setItem(k, d[k]); }" +
+			"} catch (e) {}" +
+		"}" +
+		"load(window.localStorage, arguments[0]);" +
+		"load(window.sessionStorage, arguments[1]);";
+
+	/**
+	 * Captures the state of the given driver, which must be pointed at a page of the
+	 * application of interest.
+	 *
+	 * @param webDriver the driver to capture
+	 *
+	 * @return the snapshot
+	 */
+	public static SessionSnapshot capture(final WebDriver webDriver) {
+
+		Map<String, String> localStorage = Collections.emptyMap();
+		Map<String, String> sessionStorage = Collections.emptyMap();
+
+		if (webDriver instanceof JavascriptExecutor) {
+			Object result = ((JavascriptExecutor)webDriver).executeScript(CAPTURE_STORAGE);
+			if (result instanceof List && ((List<?>)result).size() == 2) {
+				localStorage = toStringMap(((List<?>)result).get(0));
+				sessionStorage = toStringMap(((List<?>)result).get(1));
+			}
+		}
+
+		return new SessionSnapshot(
+			webDriver.getCurrentUrl(),
+			webDriver.manage().getCookies(),
+			localStorage,
+			sessionStorage
+		);
+	}
+
+	private static Map<String, String> toStringMap(Object input) {
+		Map<String, String> result = new LinkedHashMap<>();
+		if (input instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>)input).entrySet()) {
+				result.put(String.valueOf(entry.getKey()), entry.getValue() == null ? null : String.valueOf(entry.getValue()));
+			}
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	private final String url;
+	private final Set<Cookie> cookies;
+	private final Map<String, String> localStorage;
+	private final Map<String, String> sessionStorage;
+
+	private SessionSnapshot(String url, Set<Cookie> cookies, Map<String, String> localStorage, Map<String, String> sessionStorage) {
+		this.url = url;
+		this.cookies = Collections.unmodifiableSet(new LinkedHashSet<>(cookies));
+		this.localStorage = localStorage;
+		this.sessionStorage = sessionStorage;
+	}
+
+	/**
+	 * Restores this snapshot into the given driver, replacing its cookies and storage.
+	 * The driver must already be pointed at a page in the same origin as the capture,
+	 * since browsers will not accept cookies or expose storage for any other origin.
+	 *
+	 * @param webDriver the driver to restore into
+	 */
+	public void restore(final WebDriver webDriver) {
+		WebDriver.Options options = webDriver.manage();
+		options.deleteAllCookies();
+		for (Cookie cookie : cookies) {
+			options.addCookie(cookie);
+		}
+
+		if (webDriver instanceof JavascriptExecutor) {
+			((JavascriptExecutor)webDriver).executeScript(RESTORE_STORAGE, localStorage, sessionStorage);
+		}
+	}
+
+	/** @return the URL of the page the snapshot was captured from */
+	public String url() {
+		return url;
+	}
+
+	/** @return the captured cookies */
+	public Set<Cookie> cookies() {
+		return cookies;
+	}
+
+	/** @return the captured local storage entries */
+	public Map<String, String> localStorage() {
+		return localStorage;
+	}
+
+	/** @return the captured session storage entries */
+	public Map<String, String> sessionStorage() {
+		return sessionStorage;
+	}
+
+	@Override
+	public String toString() {
+		return "session snapshot of " + url + " with " + cookies.size() + " cookies, " +
+			localStorage.size() + " local and " + sessionStorage.size() + " session storage entries";
+	}
+}
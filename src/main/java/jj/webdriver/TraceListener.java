@@ -0,0 +1,120 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Notified as Pandia starts and finishes each piece of its own work - the rule's set up
+ * and tear down, generating panel implementations, panel actions, and finder lookups - so
+ * the time can be attributed in a profiler or a timeline.
+ * 
+ * <p>
+ * Each span is described by a category, one of the constants declared here, the subject
+ * doing the work, the operation, and optionally a target:
+ * <ul>
+ * <li>{@link #RULE} - the test, the phase, such as "set up" or "test", and nothing
+ * <li>{@link #GENERATION} - the panel interface, "define" or "generate", and for
+ * "generate" the method being generated
+ * <li>{@link #ACTION} - the panel interface, the action, such as "click" or "create", and
+ * usually the locator
+ * <li>{@link #FINDER} - the finder class, "find", "find all" or "poll", and the locator
+ * </ul>
+ * 
+ * <p>
+ * Spans on a thread nest, and {@link #started(String, String, String, Object)} is called on
+ * the thread doing the work right before it starts, except for the rule's set up and
+ * creating the injector, which are only reported when they finish since the listeners are
+ * created along the way.  Listeners must be quick, and thread safe if they are shared.
+ * 
+ * <p>
+ * Implementations are configured on the rule with {@link WebDriverRule#traceListener(Class)},
+ * and are constructed using Guice, so they can have dependencies injected.
+ * 
+ * @author jason
+ *
+ * @see jj.webdriver.listener.Timeline
+ */
+public interface TraceListener {
+	
+	/** Spans of the rule running a test */
+	String RULE = "rule";
+	
+	/** Spans of generating panel implementations */
+	String GENERATION = "generation";
+	
+	/** Spans of panel actions */
+	String ACTION = "action";
+	
+	/** Spans of finder lookups */
+	String FINDER = "finder";
+	
+	/**
+	 * Runs the work in a span, notifying the listeners
+	 * 
+	 * @param listeners the listeners to notify
+	 * @param category the category of the span
+	 * @param subject what is doing the work
+	 * @param operation the work being done
+	 * @param target what the work is done to, or null
+	 * @param work the work
+	 * @param <T> the result type of the work
+	 * @return the result of the work
+	 */
+	static <T> T trace(Collection<TraceListener> listeners, String category, String subject, String operation, Object target, Supplier<T> work) {
+		if (listeners.isEmpty()) {
+			return work.get();
+		}
+		
+		for (TraceListener listener : listeners) {
+			listener.started(category, subject, operation, target);
+		}
+		long start = System.nanoTime();
+		Throwable failure = null;
+		try {
+			return work.get();
+		} catch (RuntimeException | Error e) {
+			failure = e;
+			throw e;
+		} finally {
+			long took = System.nanoTime() - start;
+			for (TraceListener listener : listeners) {
+				listener.finished(category, subject, operation, target, start, took, failure);
+			}
+		}
+	}
+	
+	/**
+	 * @param category the category of the span
+	 * @param subject what is doing the work
+	 * @param operation the work being done
+	 * @param target what the work is done to, or null
+	 */
+	default void started(String category, String subject, String operation, Object target) {}
+
+	/**
+	 * @param category the category of the span
+	 * @param subject what did the work
+	 * @param operation the work that was done
+	 * @param target what the work was done to, or null
+	 * @param startNanos the {@link System#nanoTime()} when the work started
+	 * @param durationNanos how long the work took
+	 * @param failure what the work failed with, or null if it succeeded
+	 */
+	void finished(String category, String subject, String operation, Object target, long startNanos, long durationNanos, Throwable failure);
+}
@@ -16,21 +16,44 @@
 package jj.webdriver;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Singleton;
 
 import jj.webdriver.finder.ImpatientWebElementFinder;
+import jj.webdriver.finder.LatencyStore;
+import jj.webdriver.finder.LearningWebElementFinder;
+import jj.webdriver.finder.LearningWebElementFinder.Learned;
+import jj.webdriver.finder.MeasuringWebElementFinder;
+import jj.webdriver.finder.MeasuringWebElementFinder.Measured;
+import jj.webdriver.finder.TracingWebElementFinder;
+import jj.webdriver.finder.TracingWebElementFinder.Traced;
+import jj.webdriver.finder.VirtualClockWebElementFinder;
+import jj.webdriver.finder.VirtualClockWebElementFinder.Clocked;
 import jj.webdriver.generator.PanelMethodGeneratorsModule;
+import jj.webdriver.listener.AnimationSuppressor;
+import jj.webdriver.listener.Timeline;
+import jj.webdriver.listener.VirtualClock;
+import jj.webdriver.panel.GenerationDiagnostics;
+import jj.webdriver.panel.GenerationDiagnostics.InterfaceRecord;
 import jj.webdriver.panel.PanelBase;
 import jj.webdriver.panel.PanelFactory;
+import jj.webdriver.panel.URLTemplate;
+import jj.webdriver.panel.PanelFactory.AssignInputs;
+import jj.webdriver.panel.PanelFactory.BatchCommands;
+import jj.webdriver.panel.PanelFactory.ReusePanels;
+import jj.webdriver.panel.PanelFactory.SnapshotReads;
 import jj.webdriver.panel.URLBase.BaseURL;
 
 import jj.webdriver.provider.JBrowserWebDriverProvider;
@@ -48,7 +71,9 @@ import org.slf4j.LoggerFactory;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
 
 /**
  * <p>
@@ -84,6 +109,9 @@ public class WebDriverRule implements TestRule {
 	
 	private static final String SEPARATOR = "*************************************************************************************";
 	
+	// shared by every rule, so that set-up flows run once per suite
+	private static final ConcurrentMap<String, SessionSnapshot> sessionSnapshots = new ConcurrentHashMap<>();
+	
 	// TODO is it reasonable even having a default here?
 	private String baseUrl = "http://localhost:8080";
 	
@@ -99,6 +127,28 @@ public class WebDriverRule implements TestRule {
 	
 	private boolean screenshotOnError = true;
 	
+	private boolean suppressAnimations = false;
+	
+	private boolean virtualClock = false;
+	
+	private Path latencyStore = null;
+	
+	private boolean reusePanels = false;
+	
+	private boolean batchCommands = false;
+	
+	private long snapshotReads = 0;
+	
+	private boolean assignInputs = false;
+	
+	private Path traceDir = null;
+	
+	private GenerationDiagnostics generationDiagnostics = null;
+	
+	private final List<Class<? extends PageLoadListener>> pageLoadListeners = new ArrayList<>();
+	
+	private final List<Class<? extends TraceListener>> traceListeners = new ArrayList<>();
+	
 	private Logger logger = null;
 	
 	private Injector injector = null;
@@ -119,6 +169,11 @@ public class WebDriverRule implements TestRule {
 				
 				logger = LoggerFactory.getLogger("test runner");
 				
+				final Timeline timeline = traceDir == null ? null : new Timeline();
+				final boolean tracing = timeline != null || !traceListeners.isEmpty();
+				final int generatedBefore = generationDiagnostics == null ? 0 : generationDiagnostics.interfaces().size();
+				long setUpStart = System.nanoTime();
+				
 				injector = Guice.createInjector(
 					new AbstractModule() {
 						
@@ -127,24 +182,82 @@ public class WebDriverRule implements TestRule {
 							bind(new TypeLiteral<Class<? extends PanelBase>>() {}).toInstance(panelBaseClass);
 							bind(String.class).annotatedWith(BaseURL.class).toInstance(baseUrl);
 							bind(WebDriver.class).toProvider(webDriverProvider).in(Singleton.class);
-							bind(WebElementFinder.class).to(webElementFinder);
+							bind(WebElementFinder.class).to(MeasuringWebElementFinder.class);
 							bind(Logger.class).toInstance(logger);
+							bindConstant().annotatedWith(ReusePanels.class).to(reusePanels);
+							bindConstant().annotatedWith(BatchCommands.class).to(batchCommands);
+							bindConstant().annotatedWith(SnapshotReads.class).to(snapshotReads);
+							bindConstant().annotatedWith(AssignInputs.class).to(assignInputs);
+							if (generationDiagnostics != null) {
+								bind(GenerationDiagnostics.class).toInstance(generationDiagnostics);
+							}
+							
+							Multibinder<PageLoadListener> pageLoadListenerBinder = Multibinder.newSetBinder(binder(), PageLoadListener.class);
+							if (suppressAnimations) {
+								pageLoadListenerBinder.addBinding().to(AnimationSuppressor.class);
+							}
+							
+							// the finder chain, from the inside out
+							Class<? extends WebElementFinder> finder = webElementFinder;
+							if (virtualClock) {
+								pageLoadListenerBinder.addBinding().to(VirtualClock.class);
+								bind(WebElementFinder.class).annotatedWith(Clocked.class).to(finder);
+								finder = VirtualClockWebElementFinder.class;
+							}
+							if (latencyStore != null) {
+								bind(LatencyStore.class).toInstance(LatencyStore.at(latencyStore));
+								bind(WebElementFinder.class).annotatedWith(Learned.class).to(finder);
+								finder = LearningWebElementFinder.class;
+							}
+							if (tracing) {
+								bind(WebElementFinder.class).annotatedWith(Traced.class).to(finder);
+								finder = TracingWebElementFinder.class;
+							}
+							bind(WebElementFinder.class).annotatedWith(Measured.class).to(finder);
+							
+							for (Class<? extends PageLoadListener> pageLoadListener : pageLoadListeners) {
+								pageLoadListenerBinder.addBinding().to(pageLoadListener);
+							}
+							
+							Multibinder<TraceListener> traceListenerBinder = Multibinder.newSetBinder(binder(), TraceListener.class);
+							for (Class<? extends TraceListener> traceListener : traceListeners) {
+								traceListenerBinder.addBinding().to(traceListener);
+							}
+							if (timeline != null) {
+								traceListenerBinder.addBinding().toInstance(timeline);
+							}
 						}
 					},
 					new PanelMethodGeneratorsModule()
 				);
 				
-				webDriver = injector.getInstance(WebDriver.class);
+				final Set<TraceListener> tracers = injector.getInstance(Key.get(new TypeLiteral<Set<TraceListener>>() {}));
+				final String test = description.getDisplayName();
+				finished(tracers, test, "create injector", setUpStart, null);
+				
+				webDriver = TraceListener.trace(tracers, TraceListener.RULE, test, "create driver", webDriverProvider.getName(),
+					() -> injector.getInstance(WebDriver.class)
+				);
+				
+				long testStart = System.nanoTime();
+				Throwable failure = null;
 				
 				try {
 				
 					logger.info(SEPARATOR);
 					logger.info("beginning {}.{}", description.getClassName(), description.getMethodName());
 					logger.info("using driver {}", webDriver);
+					finished(tracers, test, "set up", setUpStart, null);
+					started(tracers, test, "test");
+					testStart = System.nanoTime();
 					base.evaluate();
+					
+					// whatever is left still has to happen, and might fail
+					flushCommands();
 				
 				} catch (Throwable t) {	
 					
+					failure = t;
 					logger.error("TEST ENDED IN ERROR", t);
 					
 					if (screenshotOnError && !saveScreenshotIfFound(t)) {
@@ -155,8 +268,42 @@ public class WebDriverRule implements TestRule {
 					
 				} finally {
 					
+					finished(tracers, test, "test", testStart, failure);
+					started(tracers, test, "tear down");
+					long tearDownStart = System.nanoTime();
+					
+					logger.info("finder made {}{}",
+						injector.getInstance(MeasuringWebElementFinder.class),
+						suppressAnimations ? " with animations suppressed" : ""
+					);
+					if (latencyStore != null) {
+						try {
+							injector.getInstance(LatencyStore.class).save();
+						} catch (UncheckedIOException uioe) {
+							logger.warn("couldn't save lookup latencies", uioe);
+						}
+					}
+					if (generationDiagnostics != null) {
+						List<InterfaceRecord> generated = generationDiagnostics.interfaces();
+						for (InterfaceRecord record : generated.subList(generatedBefore, generated.size())) {
+							logger.info("generated {}", record);
+						}
+					}
 					logger.info(SEPARATOR + "\n");
 					webDriver.quit();
+					finished(tracers, test, "tear down", tearDownStart, null);
+					if (timeline != null) {
+						Path traceFile = traceDir.resolve(makeTraceName());
+						// nobody waits for it, so a failure has to be logged from where it happens
+						final Logger timelineLogger = logger;
+						timeline.write(traceFile).whenComplete((written, writeFailure) -> {
+							if (writeFailure != null) {
+								timelineLogger.warn("couldn't write the timeline to {}", traceFile,
+									writeFailure instanceof CompletionException ? writeFailure.getCause() : writeFailure);
+							}
+						});
+						logger.info("writing the timeline to {}", traceFile);
+					}
 					currentDescription = null;
 					webDriver = null;
 					injector = null;
@@ -166,6 +313,19 @@ public class WebDriverRule implements TestRule {
 		};
 	}
 	
+	private static void started(Set<TraceListener> tracers, String test, String phase) {
+		for (TraceListener tracer : tracers) {
+			tracer.started(TraceListener.RULE, test, phase, null);
+		}
+	}
+	
+	private static void finished(Set<TraceListener> tracers, String test, String phase, long start, Throwable failure) {
+		long took = System.nanoTime() - start;
+		for (TraceListener tracer : tracers) {
+			tracer.finished(TraceListener.RULE, test, phase, null, start, took, failure);
+		}
+	}
+	
 	private boolean saveScreenshotIfFound(Throwable t) {
 		boolean hasScreenshot = false;
 		if (t.getCause() instanceof ScreenshotException) {
@@ -246,6 +406,272 @@ public class WebDriverRule implements TestRule {
 		return this;
 	}
 	
+	/**
+	 * <p>
+	 * Configure the rule to disable CSS transitions, animations, and smooth scrolling
+	 * on every page as it loads, so elements are displayed in their final state
+	 * immediately.  Default is false.
+	 * 
+	 * <p>
+	 * The rule logs the number of lookups and the total time the finder spent on them
+	 * at the end of each test, so comparing runs with and without this setting shows
+	 * the time it saves.
+	 *
+	 * @param suppressAnimations the setting
+	 *
+	 * @return the rule being configured
+	 * 
+	 * @see AnimationSuppressor
+	 */
+	public WebDriverRule suppressAnimations(boolean suppressAnimations) {
+		assertUnstarted();
+		
+		this.suppressAnimations = suppressAnimations;
+		return this;
+	}
+	
+	/**
+	 * <p>
+	 * Configure the rule to install a {@link VirtualClock} in every page as it loads, which
+	 * takes over <code>setTimeout</code>, <code>setInterval</code>, and <code>Date</code>.
+	 * When an element can't be found right away, pending timers are fired immediately,
+	 * one at a time, until it shows up, so debounces and polling in the page don't make
+	 * the test wait in real time.  Default is false.
+	 * 
+	 * <p>
+	 * The clock can also be moved explicitly using {@link #virtualClock()}
+	 *
+	 * @param virtualClock the setting
+	 *
+	 * @return the rule being configured
+	 * 
+	 * @see VirtualClockWebElementFinder
+	 */
+	public WebDriverRule virtualClock(boolean virtualClock) {
+		assertUnstarted();
+		
+		this.virtualClock = virtualClock;
+		return this;
+	}
+	
+	/**
+	 * <p>
+	 * Configure the rule to learn how long each locator takes to find, remembering
+	 * lookup times across runs in the given file, and to give each locator a deadline
+	 * based on its history instead of the finder's fixed default.  Default is off.
+	 *
+	 * @param latencyStore the file to keep the history in, which is created if necessary
+	 *
+	 * @return the rule being configured
+	 * 
+	 * @see LearningWebElementFinder
+	 */
+	public WebDriverRule learnTimeouts(Path latencyStore) {
+		assertUnstarted();
+		assert latencyStore != null : "don't give me null!";
+		
+		this.latencyStore = latencyStore;
+		return this;
+	}
+	
+	/**
+	 * <p>
+	 * Configure the rule to hand back the same panel instance each time a panel getter
+	 * is called with the same arguments, until the next page is created, rather than a
+	 * new one per call.  Useful when long fluent chains revisit the same panels.
+	 * Panels produced from lists and outcomes are always new. Default is false.
+	 * 
+	 * <p>
+	 * Reused panels keep anything the {@link PanelBase} implementation stores in them, so
+	 * leave this off if a custom base class keeps state that shouldn't be shared.
+	 *
+	 * @param reusePanels the setting
+	 *
+	 * @return the rule being configured
+	 */
+	public WebDriverRule reusePanels(boolean reusePanels) {
+		assertUnstarted();
+		
+		this.reusePanels = reusePanels;
+		return this;
+	}
+	
+	/**
+	 * <p>
+	 * Configure the rule to batch up the clicks and sets made through panels, instead of
+	 * carrying each one out as it's called. The batch is carried out together the next time
+	 * a panel reads anything, waits for anything, or navigates, when {@link #flushCommands()}
+	 * is called, and at the end of the test. With a scripting driver, that is usually a single
+	 * script execution.  Default is false.
+	 * 
+	 * <p>
+	 * Batched clicks and assigned values are performed by script, so they don't go through
+	 * all of the checks the driver would make for a real click or keystroke. Values that would
+	 * be typed are still typed by the driver. A failure is reported with the stack of the panel
+	 * method that made the command, whenever it happens.
+	 *
+	 * @param batchCommands the setting
+	 *
+	 * @return the rule being configured
+	 */
+	public WebDriverRule batchCommands(boolean batchCommands) {
+		assertUnstarted();
+		
+		this.batchCommands = batchCommands;
+		return this;
+	}
+	
+	/**
+	 * <p>
+	 * Configure the rule to answer reads of elements located by id from a snapshot of the
+	 * document, taken in a single script execution on the first such read, rather than asking
+	 * the driver every time.  The snapshot is thrown away on any click, set, wait or navigation,
+	 * and once it's older than the given time, to catch changes the page makes by itself.
+	 * Default is 0, which means reads always go to the driver.
+	 * 
+	 * <p>
+	 * Only reads of displayed elements by id, from panels that aren't rooted within an element,
+	 * are answered from the snapshot.  Everything else is read as usual.  Best suited to tests
+	 * that make a lot of assertions in a row, and to pages that don't change on their own.
+	 *
+	 * @param ttlMillis how long a snapshot can be used, in milliseconds
+	 *
+	 * @return the rule being configured
+	 */
+	public WebDriverRule snapshotReads(long ttlMillis) {
+		assertUnstarted();
+		assert ttlMillis >= 0 : "snapshots can't last negative time";
+		
+		this.snapshotReads = ttlMillis;
+		return this;
+	}
+	
+	/**
+	 * <p>
+	 * Configure the rule to have set methods append their values to elements directly and
+	 * fire input and change events, rather than typing them a key at a time.  Large values
+	 * go in in a single round trip instead of taking seconds.  Default is false.
+	 * 
+	 * <p>
+	 * No key events fire for assigned values.  Methods for inputs that need them can insist
+	 * on typing with {@link Input}, and drivers that can't run scripts always type.
+	 *
+	 * @param assignInputs the setting
+	 *
+	 * @return the rule being configured
+	 */
+	public WebDriverRule assignInputs(boolean assignInputs) {
+		assertUnstarted();
+		
+		this.assignInputs = assignInputs;
+		return this;
+	}
+	
+	/**
+	 * Carries out any batched commands now.
+	 * 
+	 * @see #batchCommands(boolean)
+	 */
+	public void flushCommands() {
+		assert injector != null : "cannot flush commands outside of a test";
+		
+		injector.getInstance(PanelFactory.class).flush();
+	}
+	
+	/**
+	 * @return the clock installed in the current page, to move it forward explicitly
+	 * 
+	 * @see #virtualClock(boolean)
+	 */
+	public VirtualClock virtualClock() {
+		assert injector != null : "cannot use the clock outside of a test";
+		assert virtualClock : "the virtual clock is not configured";
+		
+		return injector.getInstance(VirtualClock.class);
+	}
+	
+	/**
+	 * Add a listener to be notified each time a page is loaded.  Can be
+	 * called more than once to add several listeners, which are notified
+	 * in the order they were added.
+	 *
+	 * @param pageLoadListener the listener class
+	 *
+	 * @return the rule being configured
+	 */
+	public WebDriverRule pageLoadListener(Class<? extends PageLoadListener> pageLoadListener) {
+		assertUnstarted();
+		assert pageLoadListener != null : "don't give me null!";
+		
+		this.pageLoadListeners.add(pageLoadListener);
+		return this;
+	}
+	
+	/**
+	 * <p>
+	 * Add a {@link TraceListener} to the test run, to be told as the rule, the generator,
+	 * panels, and the finder start and finish their work.
+	 *
+	 * @param traceListener the listener class
+	 *
+	 * @return the rule being configured
+	 */
+	public WebDriverRule traceListener(Class<? extends TraceListener> traceListener) {
+		assertUnstarted();
+		assert traceListener != null : "don't give me null!";
+		
+		this.traceListeners.add(traceListener);
+		return this;
+	}
+	
+	/**
+	 * <p>
+	 * Configure the rule to write a timeline of each test to the given directory, in
+	 * the Chrome trace event format, which any trace viewer can open. The timeline has
+	 * spans for the rule's set up, creating the injector and the driver, every panel
+	 * created, every action performed, and every lookup and poll the finder makes. It
+	 * is named after the test, and written in the background once the test finishes.
+	 * Default is not to write timelines.
+	 * 
+	 * @param traceDir the directory to write to
+	 * 
+	 * @return the rule being configured
+	 * 
+	 * @see Timeline
+	 */
+	public WebDriverRule traceDir(Path traceDir) {
+		assertUnstarted();
+		assert traceDir != null : "don't give me null!";
+		assert Files.isDirectory(traceDir) : "must be a directory!";
+		
+		this.traceDir = traceDir;
+		return this;
+	}
+	
+	/**
+	 * <p>
+	 * Configure the rule to keep diagnostics on how panel implementations are generated -
+	 * the time taken by each interface and each of its methods, which generator matched each
+	 * method and how many were tried first. The interfaces generated during a test are logged
+	 * as it finishes, and each one is written to the given directory along with the source
+	 * of its method bodies. Implementations are only generated once per JVM, so this only
+	 * sees interfaces that no earlier test has used. Default is not to keep diagnostics.
+	 * 
+	 * @param dumpDir the directory to write generated interfaces to
+	 * 
+	 * @return the rule being configured
+	 * 
+	 * @see GenerationDiagnostics
+	 */
+	public WebDriverRule generationDiagnostics(Path dumpDir) {
+		assertUnstarted();
+		assert dumpDir != null : "don't give me null!";
+		assert Files.isDirectory(dumpDir) : "must be a directory!";
+		
+		this.generationDiagnostics = new GenerationDiagnostics(dumpDir);
+		return this;
+	}
+	
 	public WebDriverRule screenShotDir(Path screenshotDir) {
 		assertUnstarted();
 		assert screenshotDir != null : "don't give me null!";
@@ -309,6 +735,10 @@ public class WebDriverRule implements TestRule {
 	 *
 	 * @return the result as above
 	 */
+	private String makeTraceName() {
+		return (currentDescription.getClassName() + "." + currentDescription.getMethodName()).replaceAll("[^\\w.-]", "_") + ".trace.json";
+	}
+	
 	private String makeScreenShotName(String base) {
 		
 		Calendar now = Calendar.getInstance();
@@ -327,34 +757,6 @@ public class WebDriverRule implements TestRule {
 		);
 	}
 	
-	private String makeURL(String inputURL, Object...queryObjects) {
-		
-		List<Object> formatArgs = new ArrayList<>();
-		QueryParams queryParams = null;
-		if (queryObjects != null) {
-			for (Object queryObject : queryObjects) {
-				if (queryObject instanceof QueryParams) {
-					queryParams = queryParams == null ? (QueryParams)queryObject : queryParams.and((QueryParams)queryObject);
-				} else if (queryObject instanceof String) {
-					try {
-						formatArgs.add(URLEncoder.encode((String)queryObject, "UTF-8"));
-					} catch (UnsupportedEncodingException e) { /* can't happen */ }
-				} else if (queryObject instanceof Number) {
-					formatArgs.add(queryObject);
-				} else {
-					logger.error("got a querystring argument that makes no sense, {}", queryObject);
-				}
-			}
-		}
-		String url = String.format(inputURL, formatArgs.toArray()); 
-		
-		if (queryParams != null) {
-			url = url + (url.contains("?") ? "&" : "?") + queryParams;
-		}
-		
-		return url;
-	}
-	
 	/**
 	 * <p>
 	 * Directs the underlying WebDriver to make a request, using the URL defined on the
@@ -363,8 +765,8 @@ public class WebDriverRule implements TestRule {
 	 * 
 	 * <p>
 	 * The page interface must have a {@link URL} annotation.  The value of this annotation is
-	 * concatenated to the configured base URL in this rule, then the result is used as a format
-	 * string.
+	 * used as a format string, and the result is appended to the configured base URL in this
+	 * rule.  The format string is compiled once per interface, see {@link URLTemplate}.
 	 * 
 	 * <p>
 	 * The queryArgs parameter can be a mix of String, Number, and QueryParam objects.  All
@@ -388,9 +790,136 @@ public class WebDriverRule implements TestRule {
 		
 		assert pageInterface.getAnnotation(URL.class) != null : "page declarations must have a URL annotation";
 		
-		webDriver.get(makeURL(baseUrl + pageInterface.getAnnotation(URL.class).value(), queryArgs));
+		if (queryArgs != null) {
+			for (Object queryArg : queryArgs) {
+				if (!URLTemplate.accepts(queryArg)) {
+					logger.error("got a querystring argument that makes no sense, {}", queryArg);
+				}
+			}
+		}
+		
+		PanelFactory panelFactory = injector.getInstance(PanelFactory.class);
+		panelFactory.flush();
+		
+		webDriver.get(URLTemplate.of(pageInterface).expand(baseUrl, queryArgs));
+		
+		return panelFactory.create(pageInterface);
+	}
+
+	private String snapshotKey(String name) {
+		return baseUrl + " " + name;
+	}
+	
+	private static String origin(String url) {
+		try {
+			URI uri = URI.create(url);
+			return uri.getScheme() + "://" + uri.getRawAuthority();
+		} catch (IllegalArgumentException iae) {
+			return url;
+		}
+	}
+	
+	/**
+	 * <p>
+	 * Captures the cookies and local/session storage of the current page, and saves
+	 * them under the given name so that they can be restored into the driver of any
+	 * later test using the same base URL.  Snapshots live as long as the JVM, so a
+	 * set-up flow only has to run once per suite.
+	 * 
+	 * <p>
+	 * A previously saved snapshot with the same name is replaced.
+	 *
+	 * @param name the name of the snapshot
+	 *
+	 * @return the captured snapshot
+	 * 
+	 * @see #restoreSession(String)
+	 * @see #withSession(String, Runnable)
+	 */
+	public SessionSnapshot saveSession(String name) {
+		
+		assert webDriver != null : "cannot save a session outside of a test";
+		assert name != null : "don't give me null!";
+		
+		flushCommands();
+		SessionSnapshot snapshot = SessionSnapshot.capture(webDriver);
+		sessionSnapshots.put(snapshotKey(name), snapshot);
+		logger.info("saved session {} as {}", name, snapshot);
+		
+		return snapshot;
+	}
+	
+	/**
+	 * <p>
+	 * Restores the named snapshot into the current driver in one step, replacing any
+	 * cookies and storage it already has.  If the driver is not already on a page from
+	 * the origin of the snapshot, it is first pointed at that origin, since browsers only
+	 * accept cookies for the current document.
+	 * 
+	 * <p>
+	 * Call this before {@link #get(Class, Object...)} to start a test from the saved state.
+	 *
+	 * @param name the name of the snapshot
+	 *
+	 * @return true if the snapshot existed and was restored, false otherwise
+	 */
+	public boolean restoreSession(String name) {
+		
+		assert webDriver != null : "cannot restore a session outside of a test";
+		assert name != null : "don't give me null!";
+		
+		SessionSnapshot snapshot = sessionSnapshots.get(snapshotKey(name));
+		if (snapshot == null) {
+			return false;
+		}
+		
+		String origin = origin(snapshot.url());
+		if (!origin.equals(origin(webDriver.getCurrentUrl()))) {
+			webDriver.get(origin + "/");
+		}
+		
+		snapshot.restore(webDriver);
+		logger.info("restored session {} from {}", name, snapshot);
+		
+		return true;
+	}
+	
+	/**
+	 * <p>
+	 * Restores the named snapshot if it exists.  Otherwise, runs the given set-up flow against
+	 * the current driver and saves the resulting state under the name, so that subsequent
+	 * calls anywhere in the suite can skip the flow.
+	 * 
+	 * <pre class="brush:java">
+	 * {@literal @}Before
+	 * public void logIn() {
+	 * 	webDriverRule.withSession("admin", () -&gt;
+	 * 		webDriverRule.get(LoginPage.class).setCredentials(ADMIN).clickLogIn()
+	 * 	);
+	 * }
+	 * </pre>
+	 *
+	 * @param name the name of the snapshot
+	 * @param setUp the flow that establishes the session state
+	 */
+	public void withSession(String name, Runnable setUp) {
 		
-		return injector.getInstance(PanelFactory.class).create(pageInterface);
+		assert setUp != null : "don't give me null!";
+		
+		if (!restoreSession(name)) {
+			setUp.run();
+			saveSession(name);
+		}
+	}
+	
+	/**
+	 * Discards the named snapshot, if it exists, for example after a test
+	 * invalidates the server-side session it represents.
+	 *
+	 * @param name the name of the snapshot
+	 */
+	public void forgetSession(String name) {
+		sessionSnapshots.remove(snapshotKey(name));
 	}
 
 	/**
@@ -15,6 +15,8 @@
  */
 package jj.webdriver;
 
+import java.util.List;
+
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
@@ -30,4 +32,34 @@ import org.openqa.selenium.WebElement;
 public interface WebElementFinder {
 	
 	WebElement find(WebDriver webDriver, By by);
+	
+	/**
+	 * <p>
+	 * Finds an element with a specific waiting budget, as configured on the
+	 * {@link jj.webdriver.By} annotation. The default implementation ignores the
+	 * budget and delegates to {@link #find(WebDriver, By)}.
+	 * 
+	 * @param webDriver the driver
+	 * @param by the locator
+	 * @param timeoutMillis how long to wait, or -1 for the finder's default
+	 * @param pollMillis how often to look while waiting, or -1 for the finder's default
+	 * @return the element
+	 */
+	default WebElement find(WebDriver webDriver, By by, long timeoutMillis, long pollMillis) {
+		return find(webDriver, by);
+	}
+	
+	/**
+	 * <p>
+	 * Finds every element matching the given locator in a single lookup. An empty
+	 * result is legitimate, so the default implementation does not wait at all, it
+	 * simply asks the driver once.
+	 * 
+	 * @param webDriver the driver
+	 * @param by the locator
+	 * @return the matching elements, possibly empty
+	 */
+	default List<WebElement> findAll(WebDriver webDriver, By by) {
+		return webDriver.findElements(by);
+	}
 }
@@ -15,6 +15,8 @@
  */
 package jj.webdriver.finder;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -32,7 +34,8 @@ import com.google.common.base.Predicate;
 /**
  * waits three seconds for the element to exist and be displayed.  if the
  * element is not found, a warning is logged, and it waits three more
- * seconds, then bails
+ * seconds, then bails.  a timeout configured on the locator is the whole
+ * wait, with no second try
  * 
  * @author jason
  *
@@ -40,6 +43,10 @@ import com.google.common.base.Predicate;
 @Singleton
 public class ImpatientWebElementFinder implements WebElementFinder {
 
+	private static final long TIMEOUT_MILLIS = 3000;
+	
+	private static final long POLL_MILLIS = 500;
+
 	private final Logger logger;
 	
 	@Inject
@@ -49,25 +56,36 @@ public class ImpatientWebElementFinder implements WebElementFinder {
 	
 	@Override
 	public WebElement find(final WebDriver webDriver, final By by) {
-		int tries = 1;
+		return find(webDriver, by, -1, -1);
+	}
+	
+	@Override
+	public WebElement find(final WebDriver webDriver, final By by, final long timeoutMillis, final long pollMillis) {
+		long timeout = timeoutMillis < 0 ? TIMEOUT_MILLIS : timeoutMillis;
+		// only the default gets a second chance, a configured timeout is the whole wait
+		int tries = timeoutMillis < 0 ? 1 : 0;
+		int total = tries + 1;
 		do {
 			try {
-				new WebDriverWait(webDriver, 3).until(new Predicate<WebDriver>() {
-					
-					@Override
-					public boolean apply(WebDriver webDriver) {
-						WebElement webElement = webDriver.findElement(by);
-						return webElement != null && webElement.isDisplayed();
-					}
-				});
+				new WebDriverWait(webDriver, 0)
+					.withTimeout(timeout, TimeUnit.MILLISECONDS)
+					.pollingEvery(pollMillis < 0 ? POLL_MILLIS : pollMillis, TimeUnit.MILLISECONDS)
+					.until(new Predicate<WebDriver>() {
+						
+						@Override
+						public boolean apply(WebDriver webDriver) {
+							WebElement webElement = webDriver.findElement(by);
+							return webElement != null && webElement.isDisplayed();
+						}
+					});
 				// if we succeed, exit now
 				tries = 0;
 			
 			} catch (TimeoutException e) {
 				if (tries == 0) {
-					throw new AssertionError("gave up locating an element after 6 seconds " + by);
+					throw new AssertionError("gave up locating an element after " + (timeout * total) + "ms " + by);
 				} else {
-					logger.warn("can't find element {} in 3 seconds. trying three more.", by);
+					logger.warn("can't find element {} in {}ms. trying again.", by, timeout);
 				}
 			}
 
@@ -0,0 +1,205 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.finder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * Remembers how long recent lookups took, per locator, in a small text file
+ * so that the history carries across runs.  Each line of the file is a
+ * locator, a tab, and a comma separated list of milliseconds, oldest first.
+ * Lookups that failed are negative.
+ * 
+ * <p>
+ * There is one instance per file, shared by every test in the JVM.
+ * 
+ * @author jason
+ *
+ */
+public final class LatencyStore {
+	
+	private static final ConcurrentMap<Path, LatencyStore> stores = new ConcurrentHashMap<>();
+	
+	// only the most recent lookups count
+	private static final int MAX_SAMPLES = 100;
+	
+	/**
+	 * @param file the backing file, which need not exist yet
+	 * @return the store backed by the given file, loading it if necessary
+	 */
+	public static LatencyStore at(Path file) {
+		Path key = file.toAbsolutePath().normalize();
+		LatencyStore result = stores.get(key);
+		if (result == null) {
+			stores.putIfAbsent(key, new LatencyStore(key));
+			result = stores.get(key);
+		}
+		return result;
+	}
+	
+	private final Path file;
+	
+	private final Map<String, Deque<Long>> samples = new TreeMap<>();
+	
+	private LatencyStore(Path file) {
+		this.file = file;
+		if (Files.isRegularFile(file)) {
+			try {
+				for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+					int tab = line.lastIndexOf('\t');
+					if (tab > 0) {
+						Deque<Long> values = new ArrayDeque<>();
+						for (String value : line.substring(tab + 1).split(",")) {
+							if (!value.isEmpty()) {
+								values.add(Long.valueOf(value));
+							}
+						}
+						samples.put(line.substring(0, tab), values);
+					}
+				}
+			} catch (IOException | NumberFormatException e) {
+				// a damaged history just means starting over
+				samples.clear();
+			}
+		}
+	}
+	
+	/**
+	 * @param key the locator
+	 * @param millis how long a lookup took
+	 */
+	public void record(String key, long millis) {
+		add(key, Math.max(0, millis));
+	}
+	
+	/**
+	 * @param key the locator
+	 * @param millis how long a lookup that didn't find anything took
+	 */
+	public void recordFailure(String key, long millis) {
+		// kept apart from the successes by sign, so a failure at zero still counts as one
+		add(key, -Math.max(1, millis));
+	}
+	
+	private synchronized void add(String key, long millis) {
+		Deque<Long> values = samples.get(key);
+		if (values == null) {
+			values = new ArrayDeque<>();
+			samples.put(key, values);
+		}
+		values.add(millis);
+		while (values.size() > MAX_SAMPLES) {
+			values.remove();
+		}
+	}
+	
+	/**
+	 * @param key the locator
+	 * @return the number of lookups remembered for the locator
+	 */
+	public synchronized int count(String key) {
+		Deque<Long> values = samples.get(key);
+		return values == null ? 0 : values.size();
+	}
+	
+	/**
+	 * @param key the locator
+	 * @return the number of remembered lookups for the locator that failed
+	 */
+	public synchronized int failures(String key) {
+		int result = 0;
+		Deque<Long> values = samples.get(key);
+		if (values != null) {
+			for (long value : values) {
+				if (value < 0) {
+					++result;
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * @param key the locator
+	 * @param percentile between 0 and 100
+	 * @return the given percentile of the remembered times of lookups for the locator that succeeded,
+	 * or -1 if there are none
+	 */
+	public synchronized long percentile(String key, double percentile) {
+		assert percentile >= 0 && percentile <= 100 : "percentiles are between 0 and 100";
+		Deque<Long> values = samples.get(key);
+		if (values == null) {
+			return -1;
+		}
+		long[] sorted = new long[values.size()];
+		int i = 0;
+		for (long value : values) {
+			if (value >= 0) {
+				sorted[i++] = value;
+			}
+		}
+		if (i == 0) {
+			return -1;
+		}
+		sorted = Arrays.copyOf(sorted, i);
+		Arrays.sort(sorted);
+		return sorted[Math.max(0, (int)Math.ceil(percentile / 100 * sorted.length) - 1)];
+	}
+	
+	/**
+	 * writes the history to the backing file
+	 */
+	public synchronized void save() {
+		List<String> lines = new ArrayList<>(samples.size());
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, Deque<Long>> entry : samples.entrySet()) {
+			sb.setLength(0);
+			sb.append(entry.getKey().replace('\n', ' ').replace('\t', ' ')).append('\t');
+			for (long value : entry.getValue()) {
+				sb.append(value).append(',');
+			}
+			sb.setLength(sb.length() - 1);
+			lines.add(sb.toString());
+		}
+		try {
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			Files.write(file, lines, StandardCharsets.UTF_8);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException("couldn't save lookup latencies to " + file, ioe);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "lookup latencies in " + file;
+	}
+}
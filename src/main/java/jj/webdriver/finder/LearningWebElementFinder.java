@@ -0,0 +1,140 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.finder;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+import javax.inject.Singleton;
+
+import jj.webdriver.WebElementFinder;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+
+/**
+ * <p>
+ * Decorates a finder to give each locator a deadline learned from how long it
+ * has taken to find before, as remembered by a {@link LatencyStore}.  Once a
+ * locator has a few lookups on record, it gets its 99th percentile plus a margin
+ * of half that again, at least half a second, instead of the decorated finder's
+ * default.  Elements that always show up right away fail fast when they're
+ * missing, and elements that are known to be slow get the time they need.
+ * 
+ * <p>
+ * A timeout configured on the locator itself always wins.  A lookup that fails
+ * under a learned deadline is remembered as a failure, and while the history
+ * holds a failure the locator gets the decorated finder's default instead of a
+ * learned deadline.  Since a failure can't tell a slow element from one that is
+ * meant to be missing, it never teaches a longer deadline, it only stops using
+ * the shorter one until enough successful lookups have pushed it out of the history.
+ * 
+ * <p>
+ * The {@link jj.webdriver.WebDriverRule} installs this when configured with
+ * {@link jj.webdriver.WebDriverRule#learnTimeouts(java.nio.file.Path)}
+ * 
+ * @author jason
+ *
+ */
+@Singleton
+public class LearningWebElementFinder implements WebElementFinder {
+	
+	/**
+	 * Qualifies the binding of the finder being decorated
+	 */
+	@Qualifier
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({FIELD, PARAMETER, METHOD})
+	public @interface Learned {}
+	
+	// how many lookups it takes to trust the history
+	private static final int MIN_SAMPLES = 5;
+	
+	private static final long MIN_MARGIN_MILLIS = 500;
+	
+	private static final long MAX_DEADLINE_MILLIS = 30000;
+	
+	// scoped locators describe their scope too, which is different every run
+	private static final String SCOPE_SEPARATOR = " within ";
+
+	private final WebElementFinder delegate;
+	private final LatencyStore store;
+	private final Logger logger;
+	
+	@Inject
+	LearningWebElementFinder(final @Learned WebElementFinder delegate, final LatencyStore store, final Logger logger) {
+		this.delegate = delegate;
+		this.store = store;
+		this.logger = logger;
+	}
+	
+	private String key(By by) {
+		String result = by.toString();
+		int scope = result.indexOf(SCOPE_SEPARATOR);
+		return scope == -1 ? result : result.substring(0, scope);
+	}
+	
+	/**
+	 * @param by the locator
+	 * @return the deadline learned for the locator, or -1 if there isn't enough history
+	 */
+	public long deadline(By by) {
+		String key = key(by);
+		if (store.count(key) < MIN_SAMPLES || store.failures(key) > 0) {
+			return -1;
+		}
+		long p99 = store.percentile(key, 99);
+		return Math.min(MAX_DEADLINE_MILLIS, p99 + Math.max(MIN_MARGIN_MILLIS, p99 / 2));
+	}
+
+	@Override
+	public WebElement find(WebDriver webDriver, By by) {
+		return find(webDriver, by, -1, -1);
+	}
+	
+	@Override
+	public WebElement find(WebDriver webDriver, By by, long timeoutMillis, long pollMillis) {
+		String key = key(by);
+		long deadline = timeoutMillis > -1 ? -1 : deadline(by);
+		long start = System.currentTimeMillis();
+		try {
+			WebElement result = delegate.find(webDriver, by, deadline > -1 ? deadline : timeoutMillis, pollMillis);
+			store.record(key, System.currentTimeMillis() - start);
+			return result;
+		} catch (AssertionError ae) {
+			if (deadline > -1) {
+				logger.warn("learned deadline of {}ms ran out for {}, using the default until it's found again", deadline, key);
+				store.recordFailure(key, System.currentTimeMillis() - start);
+			}
+			throw ae;
+		}
+	}
+	
+	@Override
+	public List<WebElement> findAll(WebDriver webDriver, By by) {
+		return delegate.findAll(webDriver, by);
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.finder;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+import javax.inject.Singleton;
+
+import jj.webdriver.WebElementFinder;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * <p>
+ * Decorates the configured finder to keep track of how many lookups are made,
+ * and how long they take in total, which is mostly time spent waiting.  The
+ * {@link jj.webdriver.WebDriverRule} always installs this around the finder
+ * it is configured with, and logs the totals at the end of each test, so the
+ * effect of settings like {@link jj.webdriver.WebDriverRule#suppressAnimations(boolean)}
+ * can be measured by comparing runs.
+ * 
+ * @author jason
+ *
+ */
+@Singleton
+public class MeasuringWebElementFinder implements WebElementFinder {
+	
+	/**
+	 * Qualifies the binding of the finder being measured
+	 */
+	@Qualifier
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({FIELD, PARAMETER, METHOD})
+	public @interface Measured {}
+	
+	private final WebElementFinder delegate;
+	
+	private final AtomicLong lookups = new AtomicLong();
+	private final AtomicLong nanos = new AtomicLong();
+	
+	@Inject
+	MeasuringWebElementFinder(final @Measured WebElementFinder delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public WebElement find(WebDriver webDriver, By by) {
+		long start = System.nanoTime();
+		try {
+			return delegate.find(webDriver, by);
+		} finally {
+			record(start);
+		}
+	}
+	
+	@Override
+	public WebElement find(WebDriver webDriver, By by, long timeoutMillis, long pollMillis) {
+		long start = System.nanoTime();
+		try {
+			return delegate.find(webDriver, by, timeoutMillis, pollMillis);
+		} finally {
+			record(start);
+		}
+	}
+	
+	@Override
+	public List<WebElement> findAll(WebDriver webDriver, By by) {
+		long start = System.nanoTime();
+		try {
+			return delegate.findAll(webDriver, by);
+		} finally {
+			record(start);
+		}
+	}
+	
+	private void record(long start) {
+		nanos.addAndGet(System.nanoTime() - start);
+		lookups.incrementAndGet();
+	}
+	
+	/** @return the number of lookups made so far */
+	public long lookups() {
+		return lookups.get();
+	}
+	
+	/** @return the total time spent in lookups so far, in milliseconds */
+	public long lookupMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+	}
+	
+	@Override
+	public String toString() {
+		return lookups() + " lookups taking " + lookupMillis() + "ms using " + delegate.getClass().getName();
+	}
+}
@@ -15,6 +15,8 @@
  */
 package jj.webdriver.finder;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Singleton;
 
 import jj.webdriver.WebElementFinder;
@@ -34,18 +36,32 @@ import com.google.common.base.Predicate;
 @Singleton
 public class ThreeSecondsAndDisplayedWebElementFinder implements WebElementFinder {
 
+	private static final long TIMEOUT_MILLIS = 3000;
+	
+	private static final long POLL_MILLIS = 500;
+
 	@Override
 	public WebElement find(final WebDriver webDriver, final By by) {
+		return find(webDriver, by, TIMEOUT_MILLIS, POLL_MILLIS);
+	}
+	
+	@Override
+	public WebElement find(final WebDriver webDriver, final By by, final long timeoutMillis, final long pollMillis) {
+		
+		long timeout = timeoutMillis < 0 ? TIMEOUT_MILLIS : timeoutMillis;
 		
 		try {
-			new WebDriverWait(webDriver, 3).until(new Predicate<WebDriver>() {
-				
-				@Override
-				public boolean apply(WebDriver webDriver) {
-					WebElement webElement = webDriver.findElement(by);
-					return webElement != null && webElement.isDisplayed();
-				}
-			});
+			new WebDriverWait(webDriver, 0)
+				.withTimeout(timeout, TimeUnit.MILLISECONDS)
+				.pollingEvery(pollMillis < 0 ? POLL_MILLIS : pollMillis, TimeUnit.MILLISECONDS)
+				.until(new Predicate<WebDriver>() {
+					
+					@Override
+					public boolean apply(WebDriver webDriver) {
+						WebElement webElement = webDriver.findElement(by);
+						return webElement != null && webElement.isDisplayed();
+					}
+				});
 		} catch (TimeoutException e) {
 			throw new AssertionError("could not locate an element " + by);
 		}
@@ -0,0 +1,138 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.finder;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+import javax.inject.Singleton;
+
+import jj.webdriver.TraceListener;
+import jj.webdriver.WebElementFinder;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * <p>
+ * Decorates a finder to report each lookup to the {@link TraceListener}s, along with
+ * each time the decorated finder asks the driver for elements while it waits, so the
+ * time spent polling can be told apart from the time spent in the driver.
+ * 
+ * <p>
+ * The {@link jj.webdriver.WebDriverRule} installs this when it has any trace listeners
+ * 
+ * @author jason
+ *
+ */
+@Singleton
+public class TracingWebElementFinder implements WebElementFinder {
+	
+	/**
+	 * Qualifies the binding of the finder being traced
+	 */
+	@Qualifier
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({FIELD, PARAMETER, METHOD})
+	public @interface Traced {}
+	
+	private static Class<?>[] interfaces(Class<?> type) {
+		Set<Class<?>> result = new LinkedHashSet<>();
+		for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+			for (Class<?> i : current.getInterfaces()) {
+				result.add(i);
+			}
+		}
+		return result.toArray(new Class<?>[result.size()]);
+	}
+	
+	private final WebElementFinder delegate;
+	private final Set<TraceListener> traceListeners;
+	private final String name;
+	
+	@Inject
+	TracingWebElementFinder(final @Traced WebElementFinder delegate, final Set<TraceListener> traceListeners) {
+		this.delegate = delegate;
+		this.traceListeners = traceListeners;
+		this.name = delegate.getClass().getName();
+	}
+	
+	@Override
+	public WebElement find(WebDriver webDriver, By by) {
+		return trace("find", by, () -> delegate.find(polling(webDriver), by));
+	}
+	
+	@Override
+	public WebElement find(WebDriver webDriver, By by, long timeoutMillis, long pollMillis) {
+		return trace("find", by, () -> delegate.find(polling(webDriver), by, timeoutMillis, pollMillis));
+	}
+	
+	@Override
+	public List<WebElement> findAll(WebDriver webDriver, By by) {
+		return trace("find all", by, () -> delegate.findAll(polling(webDriver), by));
+	}
+	
+	private <T> T trace(String operation, Object by, Supplier<T> work) {
+		return TraceListener.trace(traceListeners, TraceListener.FINDER, name, operation, by, work);
+	}
+	
+	/**
+	 * @return the driver, recording every time it's asked to find elements
+	 */
+	private WebDriver polling(final WebDriver webDriver) {
+		return (WebDriver)Proxy.newProxyInstance(
+			webDriver.getClass().getClassLoader(),
+			interfaces(webDriver.getClass()),
+			(proxy, method, args) -> {
+				try {
+					return method.getName().startsWith("findElement") ?
+						trace("poll", args[0], () -> invoke(webDriver, method, args)) :
+						method.invoke(webDriver, args);
+				} catch (InvocationTargetException ite) {
+					throw ite.getCause();
+				}
+			}
+		);
+	}
+	
+	private static Object invoke(WebDriver webDriver, Method method, Object[] args) {
+		try {
+			return method.invoke(webDriver, args);
+		} catch (InvocationTargetException ite) {
+			if (ite.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)ite.getCause();
+			}
+			throw (Error)ite.getCause(); // the driver methods don't declare anything else
+		} catch (IllegalAccessException iae) {
+			throw new AssertionError(iae);
+		}
+	}
+}
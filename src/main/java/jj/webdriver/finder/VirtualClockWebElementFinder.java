@@ -0,0 +1,123 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.finder;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+import javax.inject.Singleton;
+
+import jj.webdriver.WebElementFinder;
+import jj.webdriver.listener.VirtualClock;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * <p>
+ * Decorates a finder so that, when the element isn't there yet, it fires the page's
+ * pending timers one at a time using the {@link VirtualClock} and looks again, before
+ * falling back to the decorated finder's usual waiting.  Work the page has scheduled
+ * with <code>setTimeout</code> or <code>setInterval</code>, like debounced input
+ * handlers and polling, happens immediately instead of in real time, as long as the
+ * clock doesn't have to move more than thirty seconds for any one lookup.  Looking up
+ * every matching element fires nothing, since there may legitimately be none.
+ * 
+ * <p>
+ * The {@link jj.webdriver.WebDriverRule} installs this when configured with
+ * {@link jj.webdriver.WebDriverRule#virtualClock(boolean)}
+ * 
+ * @author jason
+ *
+ */
+@Singleton
+public class VirtualClockWebElementFinder implements WebElementFinder {
+	
+	/**
+	 * Qualifies the binding of the finder being decorated
+	 */
+	@Qualifier
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({FIELD, PARAMETER, METHOD})
+	public @interface Clocked {}
+	
+	// the farthest the clock jumps for a single timer
+	private static final long MAX_JUMP_MILLIS = 10000;
+	
+	// the most timers fired for a single lookup
+	private static final int MAX_TIMERS = 50;
+	
+	// the farthest the clock moves in total for a single lookup, so timers that have
+	// nothing to do with the element can't carry the page far into its future
+	private static final long MAX_ELAPSED_MILLIS = 30000;
+
+	private final WebElementFinder delegate;
+	private final VirtualClock clock;
+	
+	@Inject
+	VirtualClockWebElementFinder(final @Clocked WebElementFinder delegate, final VirtualClock clock) {
+		this.delegate = delegate;
+		this.clock = clock;
+	}
+	
+	@Override
+	public WebElement find(WebDriver webDriver, By by) {
+		fireUntilDisplayed(webDriver, by);
+		return delegate.find(webDriver, by);
+	}
+	
+	@Override
+	public WebElement find(WebDriver webDriver, By by, long timeoutMillis, long pollMillis) {
+		fireUntilDisplayed(webDriver, by);
+		return delegate.find(webDriver, by, timeoutMillis, pollMillis);
+	}
+	
+	private void fireUntilDisplayed(WebDriver webDriver, By by) {
+		long elapsed = 0;
+		for (int fired = 0; fired < MAX_TIMERS && elapsed < MAX_ELAPSED_MILLIS && !displayed(webDriver.findElements(by)); ++fired) {
+			long jump = clock.fireNext(Math.min(MAX_JUMP_MILLIS, MAX_ELAPSED_MILLIS - elapsed));
+			if (jump < 0) {
+				break;
+			}
+			elapsed += jump;
+		}
+	}
+	
+	// no timers here - finding nothing is a fine answer for a list, and firing
+	// the page's timers to avoid it would change state nobody asked about
+	@Override
+	public List<WebElement> findAll(WebDriver webDriver, By by) {
+		return delegate.findAll(webDriver, by);
+	}
+	
+	private boolean displayed(List<WebElement> elements) {
+		try {
+			return !elements.isEmpty() && elements.get(0).isDisplayed();
+		} catch (StaleElementReferenceException sere) {
+			return false;
+		}
+	}
+}
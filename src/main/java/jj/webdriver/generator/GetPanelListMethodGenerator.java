@@ -0,0 +1,65 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.generator;
+
+import javax.inject.Singleton;
+
+import javassist.CtClass;
+import javassist.CtMethod;
+import jj.webdriver.By;
+import jj.webdriver.panel.PanelMethodGenerator;
+
+/**
+ * <p>
+ * Generates an implementation for a method matching a pattern defined as
+ * 
+ * <ul>
+ * <li>Annotated with {@link By}, identifying every element of interest
+ * <li>Declared to return a <code>java.util.List</code> of some {@link jj.webdriver.Panel}
+ * </ul>
+ * 
+ * <p>
+ * All of the elements are found with one lookup, and a panel is produced for each
+ * one, searching relative to that element. For instance
+ * 
+ * <pre class="brush:java">
+ * {@literal @}By(cssSelector = "table.results tr")
+ * List&lt;ResultRow&gt; results();
+ * </pre>
+ * 
+ * @author jason
+ *
+ */
+@Singleton
+class GetPanelListMethodGenerator extends PanelMethodGenerator {
+	
+	private static final String LIST = "java.util.List";
+
+	@Override
+	protected boolean matches(CtMethod newMethod, CtMethod baseMethod) throws Exception {
+		CtClass elementType = returnTypeArgument(baseMethod, LIST);
+		return hasBy(baseMethod) &&
+			elementType != null &&
+			isPanel(elementType) &&
+			!isPage(elementType) &&
+			parametersMatchByAnnotation(0, newMethod, baseMethod);
+	}
+	
+	@Override
+	protected void generateReturn(CtMethod newMethod, CtMethod baseMethod, StringBuilder sb) throws Exception {
+		sb.append("return makePanels(").append(returnTypeArgument(baseMethod, LIST).getName()).append(".class, ").append(LOCAL_BY).append(");");
+	}
+}
@@ -20,10 +20,23 @@ import javax.inject.Singleton;
 import javassist.CtMethod;
 import jj.webdriver.By;
 import jj.webdriver.Panel;
-import jj.webdriver.panel.PanelBase;
 import jj.webdriver.panel.PanelMethodGenerator;
 
 /**
+ * <p>
+ * Generates an implementation for a method matching a pattern defined as
+ * 
+ * <ul>
+ * <li>Optionally annotated with {@link By}
+ * <li>Declared to return an interface directly extending {@link Panel}
+ * </ul>
+ * 
+ * <p>
+ * A {@link By} using the value attribute pushes onto the ID hierarchy, as described
+ * there.  Any other attribute locates the container element of the panel, and the
+ * panel's lookups are made within that element, which is located again if it goes
+ * stale.
+ * 
  * @author jason
  *
  */
@@ -42,19 +55,27 @@ class GetPanelMethodGenerator extends PanelMethodGenerator {
 
 	@Override
 	protected void generateMethod(CtMethod newMethod, CtMethod baseMethod) throws Exception {
-		StringBuilder sb = new StringBuilder("{")
-			.append(newMethod.getReturnType().getName()).append(" result = makePanel(").append(newMethod.getReturnType().getName()). append(".class);");
+		String returnType = newMethod.getReturnType().getName();
+		StringBuilder sb = new StringBuilder("{");
 		
 		By by = (By)baseMethod.getAnnotation(By.class);
-		if (by != null) {
-			if (empty(by.value())) {
-				throw new AssertionError("currently, By annotations on panel getter methods can only use the default value attribute.  this may change if needed!");
+		if (by != null && empty(by.value())) {
+			// any other locator identifies the container of the panel, which roots its lookups
+			processBy(by, newMethod.getParameterTypes().length == 0 ? -1 : 0, sb);
+			sb.append("return (").append(returnType).append(")panel(").append(returnType).append(".class, byStack, root(scope, ").append(LOCAL_BY).append("));");
+		} else {
+			String byStack = "byStack";
+			if (by != null && by.value().indexOf('%') == -1) {
+				byStack = "byStack.push(\"" + by.value() + "\")";
+			} else if (by != null) {
+				byStack = "byStack.push(String.format(\"" + by.value() + "\", $args))";
 			}
 			
-			sb.append("((").append(PanelBase.class.getName()).append(")result).byStack(byStack.push(String.format(\"").append(by.value()).append("\", $args)));");
+			// nested panels stay within the scope of this one
+			sb.append("return (").append(returnType).append(")panel(").append(returnType).append(".class, ").append(byStack).append(", scope);");
 		}
 		
-		sb.append("return result;}");
+		sb.append("}");
 		
 		setBody(newMethod, sb);
 		
@@ -0,0 +1,117 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.generator;
+
+import java.util.regex.Pattern;
+
+import javax.inject.Singleton;
+
+import javassist.CtClass;
+import javassist.CtMethod;
+import jj.webdriver.By;
+import jj.webdriver.Outcome;
+import jj.webdriver.Outcomes;
+import jj.webdriver.Panel;
+import jj.webdriver.panel.PanelMethodGenerator;
+
+/**
+ * <p>
+ * Generates an implementation for a method matching a pattern defined as
+ * 
+ * <ul>
+ * <li>Annotated with one or more {@link Outcome}s
+ * <li>Optionally, a method name starting with "click" followed by a capital letter, a number, an underscore,
+ * or $, and annotated with {@link By}
+ * <li>Declared to return {@link Panel}, or an interface extended by every outcome
+ * </ul>
+ * 
+ * <p>
+ * All of the outcomes are polled in one loop, and the first to appear is returned.
+ * 
+ * @author jason
+ *
+ */
+@Singleton
+class OutcomeMethodGenerator extends PanelMethodGenerator {
+	
+	private static final Pattern CLICK = makeNamePattern("click");
+	
+	private static final long DEFAULT_TIMEOUT = (Long)annotationDefault(Outcomes.class, "timeout");
+	
+	private Outcome[] outcomes(CtMethod baseMethod) throws Exception {
+		if (baseMethod.hasAnnotation(Outcomes.class)) {
+			return ((Outcomes)baseMethod.getAnnotation(Outcomes.class)).value();
+		}
+		if (baseMethod.hasAnnotation(Outcome.class)) {
+			return new Outcome[] { (Outcome)baseMethod.getAnnotation(Outcome.class) };
+		}
+		return null;
+	}
+	
+	private boolean isClick(CtMethod baseMethod) throws Exception {
+		return CLICK.matcher(baseMethod.getName()).find() && hasBy(baseMethod);
+	}
+
+	@Override
+	protected boolean matches(CtMethod newMethod, CtMethod baseMethod) throws Exception {
+		Outcome[] outcomes = outcomes(baseMethod);
+		if (outcomes == null || !parametersMatchByAnnotation(0, newMethod, baseMethod)) {
+			return false;
+		}
+		
+		CtClass returnType = newMethod.getReturnType();
+		if (!returnType.getName().equals(Panel.class.getName()) && !isPanel(returnType)) {
+			return false;
+		}
+		
+		for (Outcome outcome : outcomes) {
+			if (!newMethod.getDeclaringClass().getClassPool().get(outcome.value().getName()).subtypeOf(returnType)) {
+				throw new AssertionError(
+					baseMethod.getDeclaringClass().getName() + "." + baseMethod.getName() + " returns " + returnType.getName() +
+					" but has an outcome of " + outcome.value().getName()
+				);
+			}
+		}
+		
+		return true;
+	}
+	
+	@Override
+	protected void generate(CtMethod newMethod, CtMethod baseMethod, StringBuilder sb) throws Exception {
+		if (isClick(baseMethod)) {
+			sb.append("click(").append(LOCAL_BY).append(");");
+		}
+	}
+	
+	@Override
+	protected void generateReturn(CtMethod newMethod, CtMethod baseMethod, StringBuilder sb) throws Exception {
+		Outcome[] outcomes = outcomes(baseMethod);
+		long timeout = baseMethod.hasAnnotation(Outcomes.class) ? ((Outcomes)baseMethod.getAnnotation(Outcomes.class)).timeout() : DEFAULT_TIMEOUT;
+		
+		StringBuilder types = new StringBuilder();
+		StringBuilder locators = new StringBuilder();
+		for (int i = 0; i < outcomes.length; ++i) {
+			processBy(outcomes[i].when(), "outcome" + i, -1, sb);
+			types.append(i == 0 ? "" : ", ").append(outcomes[i].value().getName()).append(".class");
+			locators.append(i == 0 ? "" : ", ").append("outcome").append(i);
+		}
+		
+		sb.append("return (").append(newMethod.getReturnType().getName()).append(")race(")
+			.append("new Class[] {").append(types).append("}, ")
+			.append("new org.openqa.selenium.By[] {").append(locators).append("}, ")
+			.append(timeout).append("L);");
+	}
+}
@@ -44,9 +44,18 @@ public class PanelMethodGeneratorsModule extends AbstractModule {
 		
 		bindPanelMethodGenerator.to(SetInputMethodGenerator.class);
 		bindPanelMethodGenerator.to(SetModelMethodGenerator.class);
+		bindPanelMethodGenerator.to(OutcomeMethodGenerator.class);
 		bindPanelMethodGenerator.to(ClickMethodGenerator.class);
+		// ahead of the panel getter, which would claim anything returning a panel
+		bindPanelMethodGenerator.to(AwaitGoneMethodGenerator.class);
+		bindPanelMethodGenerator.to(PresenceMethodGenerator.class);
 		bindPanelMethodGenerator.to(GetPanelMethodGenerator.class);
+		// ahead of the plain read, which would claim anything returning a String
+		bindPanelMethodGenerator.to(ReadAttributesMethodGenerator.class);
 		bindPanelMethodGenerator.to(ReadMethodGenerator.class);
+		bindPanelMethodGenerator.to(GetPanelListMethodGenerator.class);
+		bindPanelMethodGenerator.to(ReadListMethodGenerator.class);
+		bindPanelMethodGenerator.to(StreamMethodGenerator.class);
 		
 		for (Class<? extends PanelMethodGenerator> generator : generators) {
 			bindPanelMethodGenerator.to(generator);
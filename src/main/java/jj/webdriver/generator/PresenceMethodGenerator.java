@@ -0,0 +1,64 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.generator;
+
+import java.util.regex.Pattern;
+
+import javax.inject.Singleton;
+
+import javassist.CtMethod;
+import jj.webdriver.By;
+import jj.webdriver.panel.PanelMethodGenerator;
+
+/**
+ * <p>
+ * Generates an implementation for a method matching a pattern defined as
+ * 
+ * <ul>
+ * <li>Annotated with {@link By}
+ * <li>A method name starting with "has" followed by a capital letter, a number, an underscore, or $,
+ * or a method name starting with "is" likewise and ending with "Present"
+ * <li>Declared to return boolean
+ * </ul>
+ * 
+ * <p>
+ * The result is whether a matching element is in the document right now. There
+ * is no waiting, so checking for something that isn't there is as quick as
+ * checking for something that is.
+ * 
+ * @author jason
+ *
+ */
+@Singleton
+class PresenceMethodGenerator extends PanelMethodGenerator {
+	
+	private static final Pattern HAS = makeNamePattern("has");
+	
+	private static final Pattern IS_PRESENT = Pattern.compile("^is[\\p{javaUpperCase}\\d_\\$].*Present$");
+	
+	@Override
+	protected boolean matches(CtMethod newMethod, CtMethod baseMethod) throws Exception {
+		return hasBy(baseMethod) &&
+			(HAS.matcher(newMethod.getName()).find() || IS_PRESENT.matcher(newMethod.getName()).find()) &&
+			parametersMatchByAnnotation(0, newMethod, baseMethod) &&
+			newMethod.getReturnType().getName().equals("boolean");
+	}
+	
+	@Override
+	protected void generateReturn(CtMethod newMethod, CtMethod baseMethod, StringBuilder sb) throws Exception {
+		sb.append("return present(").append(LOCAL_BY).append(");");
+	}
+}
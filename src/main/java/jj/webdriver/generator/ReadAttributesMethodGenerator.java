@@ -0,0 +1,129 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtMethod;
+import javassist.Modifier;
+
+import javax.inject.Singleton;
+
+import jj.webdriver.Attribute;
+import jj.webdriver.Model;
+import jj.webdriver.panel.PanelMethodGenerator;
+
+/**
+ * <p>
+ * Generates read methods for the attributes of an element, as described in {@link Attribute}.
+ * Several attributes are read with a single lookup and a single round trip.
+ * 
+ * @author jason
+ *
+ */
+@Singleton
+class ReadAttributesMethodGenerator extends PanelMethodGenerator {
+	
+	private static final Pattern NAME = makeNamePattern("read");
+	
+	private static final Pattern ATTRIBUTE_NAME = Pattern.compile("^read(\\p{javaUpperCase}[\\w\\$]*)Attribute$");
+	
+	private static final Pattern CAMEL_HUMP = Pattern.compile("([\\p{javaLowerCase}\\d])(\\p{javaUpperCase})");
+	
+	static String dashed(String name) {
+		return CAMEL_HUMP.matcher(name).replaceAll("$1-$2").toLowerCase();
+	}
+	
+	@Override
+	protected boolean matches(CtMethod newMethod, CtMethod baseMethod) throws Exception {
+		if (!hasBy(baseMethod) ||
+			!NAME.matcher(newMethod.getName()).find() ||
+			!parametersMatchByAnnotation(0, newMethod, baseMethod)) {
+			return false;
+		}
+		
+		CtClass returnType = newMethod.getReturnType();
+		switch (returnType.getName()) {
+		case "java.lang.String":
+			return baseMethod.hasAnnotation(Attribute.class) || ATTRIBUTE_NAME.matcher(newMethod.getName()).matches();
+		case "java.util.Map":
+			return baseMethod.hasAnnotation(Attribute.class);
+		default:
+			return returnType.getAnnotation(Model.class) != null;
+		}
+	}
+	
+	@Override
+	protected void generateReturn(CtMethod newMethod, CtMethod baseMethod, StringBuilder sb) throws Exception {
+		CtClass returnType = newMethod.getReturnType();
+		Attribute attribute = (Attribute)baseMethod.getAnnotation(Attribute.class);
+		
+		switch (returnType.getName()) {
+		case "java.lang.String":
+			String name;
+			if (attribute != null) {
+				assert attribute.value().length == 1 : newMethod.getName() + " returns one String, so it can only read one attribute";
+				name = attribute.value()[0];
+			} else {
+				Matcher matcher = ATTRIBUTE_NAME.matcher(newMethod.getName());
+				matcher.matches();
+				name = dashed(matcher.group(1));
+			}
+			sb.append("return attribute(").append(LOCAL_BY).append(", \"").append(name).append("\");");
+			break;
+			
+		case "java.util.Map":
+			sb.append("return attributes(").append(LOCAL_BY).append(", ");
+			names(attribute.value(), sb).append(");");
+			break;
+			
+		default:
+			List<String> fields = new ArrayList<>();
+			List<String> names = new ArrayList<>();
+			for (CtField field : returnType.getFields()) {
+				if (!Modifier.isStatic(field.getModifiers())) {
+					assert field.getType().getName().equals("java.lang.String") : "model fields must be Strings, " + field.getName() + " is not";
+					Attribute fieldAttribute = (Attribute)field.getAnnotation(Attribute.class);
+					assert fieldAttribute == null || fieldAttribute.value().length == 1 : "model field " + field.getName() + " can only read one attribute";
+					fields.add(field.getName());
+					names.add(fieldAttribute == null ? dashed(field.getName()) : fieldAttribute.value()[0]);
+				}
+			}
+			assert !fields.isEmpty() : returnType.getName() + " has no public fields to read into";
+			
+			sb.append("java.util.Map values = attributes(").append(LOCAL_BY).append(", ");
+			names(names.toArray(new String[names.size()]), sb).append(");");
+			sb.append(returnType.getName()).append(" result = new ").append(returnType.getName()).append("();");
+			for (int i = 0; i < fields.size(); ++i) {
+				sb.append("result.").append(fields.get(i)).append(" = (String)values.get(\"").append(names.get(i)).append("\");");
+			}
+			sb.append("return result;");
+		}
+	}
+	
+	private StringBuilder names(String[] names, StringBuilder sb) {
+		sb.append("new String[] {");
+		for (int i = 0; i < names.length; ++i) {
+			sb.append(i == 0 ? "\"" : ", \"").append(names[i]).append("\"");
+		}
+		return sb.append("}");
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.generator;
+
+import java.util.regex.Pattern;
+
+import javax.inject.Singleton;
+
+import javassist.CtClass;
+import javassist.CtMethod;
+import jj.webdriver.By;
+import jj.webdriver.panel.PanelMethodGenerator;
+
+/**
+ * <p>
+ * Generates an implementation for a method matching a pattern defined as
+ * 
+ * <ul>
+ * <li>Annotated with {@link By}, identifying every element of interest
+ * <li>A method name starting with "read" followed by a capital letter, a number, an underscore, or $
+ * <li>Declared to return <code>java.util.List&lt;String&gt;</code>
+ * </ul>
+ * 
+ * <p>
+ * All of the elements are found with one lookup and read in one batch, rather
+ * than one lookup and read per element.
+ * 
+ * @author jason
+ *
+ */
+@Singleton
+class ReadListMethodGenerator extends PanelMethodGenerator {
+	
+	private static final Pattern NAME = makeNamePattern("read");
+	
+	@Override
+	protected boolean matches(CtMethod newMethod, CtMethod baseMethod) throws Exception {
+		CtClass elementType = returnTypeArgument(baseMethod, "java.util.List");
+		return hasBy(baseMethod) &&
+			NAME.matcher(newMethod.getName()).find() &&
+			elementType != null &&
+			elementType.getName().equals("java.lang.String") &&
+			parametersMatchByAnnotation(0, newMethod, baseMethod);
+	}
+	
+	@Override
+	protected void generateReturn(CtMethod newMethod, CtMethod baseMethod, StringBuilder sb) throws Exception {
+		sb.append("return readAll(").append(LOCAL_BY).append(");");
+	}
+}
@@ -20,6 +20,7 @@ import java.util.regex.Pattern;
 import javax.inject.Singleton;
 
 import javassist.CtMethod;
+import jj.webdriver.Input;
 import jj.webdriver.panel.PanelMethodGenerator;
 
 /**
@@ -47,7 +48,24 @@ class SetInputMethodGenerator extends PanelMethodGenerator {
 	
 	@Override
 	protected void generate(CtMethod newMethod, CtMethod baseMethod, StringBuilder sb) throws Exception {
-		sb.append("set(").append(LOCAL_BY).append(", $1);");
+		sb.append(setter((Input)baseMethod.getAnnotation(Input.class))).append("(").append(LOCAL_BY).append(", $1);");
+	}
+	
+	/**
+	 * @return the name of the PanelBase method that enters a value as the annotation says
+	 */
+	static String setter(Input input) {
+		if (input == null) {
+			return "set";
+		}
+		switch (input.value()) {
+		case KEYSTROKES:
+			return "type";
+		case ASSIGN:
+			return "assign";
+		default:
+			throw new AssertionError("unknown input mode " + input.value());
+		}
 	}
 
 }
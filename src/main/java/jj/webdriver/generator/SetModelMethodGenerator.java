@@ -22,6 +22,7 @@ import javax.inject.Singleton;
 import javassist.CtField;
 import javassist.CtMethod;
 import jj.webdriver.By;
+import jj.webdriver.Input;
 import jj.webdriver.Model;
 import jj.webdriver.panel.ByReader;
 import jj.webdriver.panel.ByStack;
@@ -52,9 +53,13 @@ class SetModelMethodGenerator extends PanelMethodGenerator {
 		if (baseBy != null) {
 			ByReader byReader = new ByReader(baseBy);
 			assert byReader.needsResolution() : "only the default By attribute is supported on model methods";
-			sb.append(ByStack.class.getName()).append(" oldByStack = byStack;")
-				.append("Object[] slicedArgs = java.util.Arrays.copyOfRange($args, ").append(1).append(", $args.length);")
-				.append("byStack = byStack.push(String.format(\"").append(byReader.value()).append("\", slicedArgs));");
+			sb.append(ByStack.class.getName()).append(" oldByStack = byStack;");
+			if (byReader.value().indexOf('%') == -1) {
+				sb.append("byStack = byStack.push(\"").append(byReader.value()).append("\");");
+			} else {
+				sb.append("Object[] slicedArgs = java.util.Arrays.copyOfRange($args, ").append(1).append(", $args.length);")
+					.append("byStack = byStack.push(String.format(\"").append(byReader.value()).append("\", slicedArgs));");
+			}
 		}		
 		
 		for (CtField field : newMethod.getParameterTypes()[0].getFields()) {
@@ -63,10 +68,9 @@ class SetModelMethodGenerator extends PanelMethodGenerator {
 			if (by != null) {
 				processBy(by, localName, -1, sb);
 			} else {
-				sb.append("org.openqa.selenium.By ").append(localName).append(" = org.openqa.selenium.By.")
-					.append("id(byStack.resolve(\"").append(field.getName()).append("\"));");
+				sb.append("org.openqa.selenium.By ").append(localName).append(" = byStack.id(\"").append(field.getName()).append("\");");
 			}
-			sb.append("set(").append(localName).append(", $1.").append(field.getName()).append(");");
+			sb.append(SetInputMethodGenerator.setter((Input)field.getAnnotation(Input.class))).append("(").append(localName).append(", $1.").append(field.getName()).append(");");
 		}
 		
 		if (baseBy != null) {
@@ -0,0 +1,97 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.generator;
+
+import java.util.regex.Pattern;
+
+import javax.inject.Singleton;
+
+import javassist.CtClass;
+import javassist.CtMethod;
+import jj.webdriver.By;
+import jj.webdriver.Paging;
+import jj.webdriver.panel.ByReader;
+import jj.webdriver.panel.PanelMethodGenerator;
+
+/**
+ * <p>
+ * Generates an implementation for a method matching a pattern defined as
+ * 
+ * <ul>
+ * <li>Annotated with {@link By}, identifying every element of interest
+ * <li>Optionally annotated with {@link Paging} to describe how to load more elements
+ * <li>Declared to return a <code>java.util.stream.Stream</code> or <code>java.util.Iterator</code> of
+ * either some {@link jj.webdriver.Panel}, or of String with a name starting with "read"
+ * </ul>
+ * 
+ * <p>
+ * Elements are fetched lazily, in chunks, as the result is consumed.
+ * 
+ * @author jason
+ *
+ */
+@Singleton
+class StreamMethodGenerator extends PanelMethodGenerator {
+	
+	private static final String STREAM = "java.util.stream.Stream";
+	private static final String ITERATOR = "java.util.Iterator";
+	
+	private static final Pattern READ = makeNamePattern("read");
+	
+	private static final int DEFAULT_CHUNK = (Integer)annotationDefault(Paging.class, "chunk");
+	
+	private CtClass elementType(CtMethod baseMethod) throws Exception {
+		CtClass result = returnTypeArgument(baseMethod, STREAM);
+		return result == null ? returnTypeArgument(baseMethod, ITERATOR) : result;
+	}
+	
+	private boolean isRead(CtMethod baseMethod, CtClass elementType) {
+		return elementType.getName().equals("java.lang.String") && READ.matcher(baseMethod.getName()).find();
+	}
+
+	@Override
+	protected boolean matches(CtMethod newMethod, CtMethod baseMethod) throws Exception {
+		CtClass elementType = elementType(baseMethod);
+		return hasBy(baseMethod) &&
+			elementType != null &&
+			((isPanel(elementType) && !isPage(elementType)) || isRead(baseMethod, elementType)) &&
+			parametersMatchByAnnotation(0, newMethod, baseMethod);
+	}
+	
+	@Override
+	protected void generateReturn(CtMethod newMethod, CtMethod baseMethod, StringBuilder sb) throws Exception {
+		
+		Paging paging = (Paging)baseMethod.getAnnotation(Paging.class);
+		
+		String next = "null";
+		if (paging != null && !ByReader.isEmpty(paging.next())) {
+			processBy(paging.next(), "nextBy", -1, sb);
+			next = "nextBy";
+		}
+		String options = ", " + next + ", " + (paging != null && paging.scroll()) + ", " + (paging == null ? DEFAULT_CHUNK : paging.chunk()) + ")";
+		
+		CtClass elementType = elementType(baseMethod);
+		String iterator = isRead(baseMethod, elementType) ?
+			"iterateReads(" + LOCAL_BY + options :
+			"iteratePanels(" + elementType.getName() + ".class, " + LOCAL_BY + options;
+		
+		if (newMethod.getReturnType().getName().equals(STREAM)) {
+			sb.append("return stream(").append(iterator).append(");");
+		} else {
+			sb.append("return ").append(iterator).append(";");
+		}
+	}
+}
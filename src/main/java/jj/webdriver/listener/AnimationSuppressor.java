@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.listener;
+
+import javax.inject.Singleton;
+
+import jj.webdriver.PageLoadListener;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * <p>
+ * Installs a stylesheet that turns off CSS transitions, animations, and smooth
+ * scrolling, and turns off jQuery effects if jQuery is present.  Elements then
+ * reach their final state as soon as they are rendered, so finders waiting on
+ * {@link org.openqa.selenium.WebElement#isDisplayed()} don't spend polling
+ * cycles waiting out a fade or a slide.
+ * 
+ * <p>
+ * Does nothing if the driver does not execute javascript.
+ * 
+ * @author jason
+ *
+ */
+@Singleton
+public class AnimationSuppressor implements PageLoadListener {
+	
+	private static final String STYLE_ID = "pandia-suppress-animations";
+	
+	private static final String STYLE =
+		"*, *::before, *::after {" +
+			"transition-property: none !important;" +
+			"transition-duration: 0s !important;" +
+			"transition-delay: 0s !important;" +
+			"animation-duration: 0s !important;" +
+			"animation-delay: 0s !important;" +
+			"animation-iteration-count: 1 !important;" +
+			"scroll-behavior: auto !important;" +
+		"}";
+	
+	private static final String SCRIPT =
+		"if (!document.getElementById('" + STYLE_ID + "')) {" +
+			"var s = document.createElement('style');" +
+			"s.id = '" + STYLE_ID + "';" +
+			"s.appendChild(document.createTextNode('" + STYLE + "'));" +
+			"(document.head || document.documentElement).appendChild(s);" +
+		"}" +
+		"if (window.jQuery && window.jQuery.fx) { window.jQuery.fx.off = true; }";
+
+	@Override
+	public void pageLoaded(WebDriver webDriver) {
+		if (webDriver instanceof JavascriptExecutor) {
+			((JavascriptExecutor)webDriver).executeScript(SCRIPT);
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.listener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import jj.webdriver.TraceListener;
+
+/**
+ * <p>
+ * Records what happened during a test as a timeline of spans, and writes it in the
+ * Chrome trace event format, which can be opened in <code>chrome://tracing</code>,
+ * Perfetto, or any other trace viewer.  Each span has a category, a name, and
+ * optionally some arguments, and spans on the same thread nest by time.
+ * 
+ * <p>
+ * The {@link jj.webdriver.WebDriverRule} makes one for each test when configured with
+ * {@link jj.webdriver.WebDriverRule#traceDir(Path)}, and it records everything reported
+ * to it as a {@link TraceListener}.
+ * 
+ * @author jason
+ *
+ */
+public class Timeline implements TraceListener {
+	
+	// files are written one at a time off the test thread. the thread goes away when it's
+	// idle, so pending writes finish but don't keep the JVM up afterwards
+	private static final ExecutorService WRITER;
+	
+	static {
+		ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> new Thread(r, "pandia timeline writer"));
+		writer.allowCoreThreadTimeOut(true);
+		WRITER = writer;
+	}
+	
+	private static final class Span {
+		final String category;
+		final String name;
+		final long startNanos;
+		final long durationNanos;
+		final long thread;
+		final Map<String, Object> args;
+		
+		Span(String category, String name, long startNanos, long durationNanos, long thread, Map<String, Object> args) {
+			this.category = category;
+			this.name = name;
+			this.startNanos = startNanos;
+			this.durationNanos = durationNanos;
+			this.thread = thread;
+			this.args = args;
+		}
+	}
+	
+	private final long startNanos = System.nanoTime();
+	
+	private final List<Span> spans = new ArrayList<>();
+	
+	/**
+	 * Records a span on the current thread
+	 * 
+	 * @param category what recorded the span, such as {@link TraceListener#RULE}
+	 * @param name what happened
+	 * @param startNanos the {@link System#nanoTime()} when it started
+	 * @param durationNanos how long it took
+	 * @param args anything worth knowing about it, as pairs of names and values
+	 */
+	public void span(String category, String name, long startNanos, long durationNanos, Object...args) {
+		assert args.length % 2 == 0 : "span arguments come in name and value pairs";
+		
+		Map<String, Object> argMap = new LinkedHashMap<>();
+		for (int i = 0; i < args.length; i += 2) {
+			if (args[i + 1] != null) {
+				argMap.put(String.valueOf(args[i]), args[i + 1]);
+			}
+		}
+		Span span = new Span(category, name, startNanos, durationNanos, Thread.currentThread().getId(), argMap);
+		synchronized (spans) {
+			spans.add(span);
+		}
+	}
+	
+	@Override
+	public void finished(String category, String subject, String operation, Object target, long startNanos, long durationNanos, Throwable failure) {
+		// panels are what matter in a name, tests and finders are the same throughout
+		boolean named = ACTION.equals(category) || GENERATION.equals(category);
+		span(category, named ? subject.substring(subject.lastIndexOf('.') + 1) + " " + operation : operation, startNanos, durationNanos,
+			"subject", subject,
+			"target", target,
+			"failure", failure
+		);
+	}
+	
+	/**
+	 * @return how many spans have been recorded
+	 */
+	public int size() {
+		synchronized (spans) {
+			return spans.size();
+		}
+	}
+	
+	/**
+	 * Writes the spans recorded so far to the given file, in the background
+	 * 
+	 * @param file where to write
+	 * 
+	 * @return the file, once it's written, or why it couldn't be
+	 */
+	public CompletableFuture<Path> write(final Path file) {
+		final List<Span> snapshot;
+		synchronized (spans) {
+			snapshot = new ArrayList<>(spans);
+		}
+		
+		return CompletableFuture.supplyAsync(() -> {
+			try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+				write(snapshot, writer);
+			} catch (IOException ioe) {
+				throw new UncheckedIOException(ioe);
+			}
+			return file;
+		}, WRITER);
+	}
+	
+	private void write(List<Span> snapshot, Writer writer) throws IOException {
+		writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+		boolean first = true;
+		for (Span span : snapshot) {
+			writer.write(first ? "\n" : ",\n");
+			first = false;
+			writer.write("{\"ph\":\"X\",\"pid\":1,\"tid\":");
+			writer.write(String.valueOf(span.thread));
+			writer.write(",\"cat\":");
+			writer.write(quoted(span.category));
+			writer.write(",\"name\":");
+			writer.write(quoted(span.name));
+			writer.write(",\"ts\":");
+			writer.write(micros(span.startNanos - startNanos));
+			writer.write(",\"dur\":");
+			writer.write(micros(span.durationNanos));
+			if (!span.args.isEmpty()) {
+				writer.write(",\"args\":{");
+				boolean firstArg = true;
+				for (Map.Entry<String, Object> arg : span.args.entrySet()) {
+					writer.write(firstArg ? "" : ",");
+					firstArg = false;
+					writer.write(quoted(arg.getKey()));
+					writer.write(':');
+					writer.write(arg.getValue() instanceof Number ? String.valueOf(arg.getValue()) : quoted(String.valueOf(arg.getValue())));
+				}
+				writer.write('}');
+			}
+			writer.write('}');
+		}
+		writer.write("\n]}\n");
+	}
+	
+	static String micros(long nanos) {
+		// the format takes fractional microseconds. spans from before the timeline began
+		// are negative, and under a microsecond the whole part doesn't carry the sign
+		long magnitude = Math.abs(nanos);
+		return (nanos < 0 ? "-" : "") + magnitude / 1000 + "." + String.format("%03d", magnitude % 1000);
+	}
+	
+	static String quoted(String value) {
+		StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int)c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb.append('"').toString();
+	}
+}
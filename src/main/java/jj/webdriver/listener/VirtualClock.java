@@ -0,0 +1,187 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.listener;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import jj.webdriver.PageLoadListener;
+import jj.webdriver.panel.PanelFactory;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * <p>
+ * Installs a controllable clock into every page as it loads, replacing
+ * <code>setTimeout</code>, <code>setInterval</code>, their clear functions,
+ * and <code>Date</code>.  Left alone, the page behaves as usual - timers still
+ * fire in real time.  But the clock can also be moved forward, firing every
+ * timer that comes due on the way immediately, so a debounced input or a
+ * polling loop makes progress without the test sitting through the delay.
+ * 
+ * <p>
+ * Only timers created after the page loads are controlled, since the
+ * clock is installed by script once the driver returns from navigation.
+ * Firing a timer can change the document, so any snapshot of it the panels
+ * are reading from is thrown away whenever one fires.
+ * 
+ * <p>
+ * Does nothing if the driver does not execute javascript.
+ * 
+ * @author jason
+ *
+ * @see jj.webdriver.finder.VirtualClockWebElementFinder
+ */
+@Singleton
+public class VirtualClock implements PageLoadListener {
+	
+	private static final String INSTALL =
+		"(function (w) {" +
+			"if (w.__pandiaClock) { return; }" +
+			"var RealDate = w.Date, realSetTimeout = w.setTimeout, realClearTimeout = w.clearTimeout;" +
+			"var offset = 0, nextId = 1, timers = {};" +
+			"function now() { return RealDate.now() + offset; }" +
+			"function schedule(t) {" +
+				"realClearTimeout(t.real);" +
+				"t.real = realSetTimeout(function () { if (timers[t.id] === t) { run(t); } }, Math.max(0, t.due - now()));" +
+			"}" +
+			"function run(t) {" +
+				"if (t.interval) { t.due += t.delay; schedule(t); } else { realClearTimeout(t.real); delete timers[t.id]; }" +
+				"try {" +
+					"if (typeof t.fn === 'function') { t.fn.apply(w, t.args); } else { (0, eval)(String(t.fn)); }" +
+				"} catch (e) {" +
+					"realSetTimeout(function () { throw e; }, 0);" +
+				"}" +
+			"}" +
+			"function add(fn, delay, args, interval) {" +
+				"var t = { id: nextId++, fn: fn, delay: Math.max(interval ? 1 : 0, +delay || 0), args: args, interval: interval };" +
+				"t.due = now() + t.delay;" +
+				"timers[t.id] = t;" +
+				"schedule(t);" +
+				"return t.id;" +
+			"}" +
+			"function clear(id) { var t = timers[id]; if (t) { realClearTimeout(t.real); delete timers[id]; } }" +
+			"function earliest() { var e = null; for (var id in timers) { if (!e || timers[id].due < e.due) { e = timers[id]; } } return e; }" +
+			"w.setTimeout = function (fn, delay) { return add(fn, delay, Array.prototype.slice.call(arguments, 2), false); };" +
+			"w.setInterval = function (fn, delay) { return add(fn, delay, Array.prototype.slice.call(arguments, 2), true); };" +
+			"w.clearTimeout = w.clearInterval = clear;" +
+			"var VirtualDate = function () {" +
+				"if (!(this instanceof VirtualDate)) { return new RealDate(now()).toString(); }" +
+				"if (arguments.length === 0) { return new RealDate(now()); }" +
+				"return new (Function.prototype.bind.apply(RealDate, [null].concat(Array.prototype.slice.call(arguments))))();" +
+			"};" +
+			"VirtualDate.prototype = RealDate.prototype;" +
+			"VirtualDate.now = now;" +
+			"VirtualDate.parse = RealDate.parse;" +
+			"VirtualDate.UTC = RealDate.UTC;" +
+			"w.Date = VirtualDate;" +
+			"w.__pandiaClock = {" +
+				"advance: function (ms) {" +
+					"var target = now() + ms, fired = 0, t;" +
+					"while ((t = earliest()) && t.due <= target && fired < 10000) {" +
+						"offset += Math.max(0, t.due - now());" +
+						"run(t);" +
+						"fired++;" +
+					"}" +
+					"offset += Math.max(0, target - now());" +
+					"return fired;" +
+				"}," +
+				"next: function (limit) {" +
+					"var t = earliest();" +
+					"if (!t || t.due - now() > limit) { return -1; }" +
+					"var jump = Math.max(0, t.due - now());" +
+					"offset += jump;" +
+					"run(t);" +
+					"return jump;" +
+				"}," +
+				"pending: function () { var n = 0; for (var id in timers) { n++; } return n; }" +
+			"};" +
+		"})(window);";
+	
+	private static final String ADVANCE = "return window.__pandiaClock ? window.__pandiaClock.advance(arguments[0]) : 0;";
+	
+	private static final String NEXT = "return window.__pandiaClock ? window.__pandiaClock.next(arguments[0]) : -1;";
+	
+	private static final String PENDING = "return window.__pandiaClock ? window.__pandiaClock.pending() : 0;";
+	
+	private final Provider<WebDriver> webDriver;
+	
+	// the factory has this as a page load listener, so it comes later
+	private final Provider<PanelFactory> panelFactory;
+	
+	@Inject
+	VirtualClock(final Provider<WebDriver> webDriver, final Provider<PanelFactory> panelFactory) {
+		this.webDriver = webDriver;
+		this.panelFactory = panelFactory;
+	}
+
+	@Override
+	public void pageLoaded(WebDriver webDriver) {
+		if (webDriver instanceof JavascriptExecutor) {
+			((JavascriptExecutor)webDriver).executeScript(INSTALL);
+		}
+	}
+	
+	private Object execute(String script, Object...args) {
+		WebDriver driver = webDriver.get();
+		return driver instanceof JavascriptExecutor ? ((JavascriptExecutor)driver).executeScript(script, args) : null;
+	}
+	
+	private static long toLong(Object result, long otherwise) {
+		return result instanceof Number ? ((Number)result).longValue() : otherwise;
+	}
+	
+	/**
+	 * Moves the clock of the current page forward, firing every timer that comes due
+	 * along the way, in order
+	 *
+	 * @param millis how far to move the clock
+	 *
+	 * @return the number of timers fired
+	 */
+	public long advance(long millis) {
+		long fired = toLong(execute(ADVANCE, millis), 0);
+		if (fired > 0) {
+			panelFactory.get().changed();
+		}
+		return fired;
+	}
+	
+	/**
+	 * Moves the clock of the current page forward to the next pending timer and fires it,
+	 * as long as it is due within the limit
+	 *
+	 * @param limitMillis the farthest to move the clock
+	 *
+	 * @return how far the clock moved in milliseconds, or -1 if no timer is due within the limit
+	 */
+	public long fireNext(long limitMillis) {
+		long moved = toLong(execute(NEXT, limitMillis), -1);
+		if (moved >= 0) {
+			panelFactory.get().changed();
+		}
+		return moved;
+	}
+	
+	/**
+	 * @return the number of timers pending in the current page
+	 */
+	public long pending() {
+		return toLong(execute(PENDING), 0);
+	}
+}
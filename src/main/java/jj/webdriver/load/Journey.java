@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.load;
+
+/**
+ * <p>
+ * One pass through the application by a synthetic user, written in terms of
+ * page objects.  Journeys are run over and over by many users at once, so
+ * they shouldn't keep state outside of the {@link VirtualUser}.
+ * 
+ * <pre class="brush:java">
+ * LoadReport report = new LoadRunner()
+ * 	.users(20)
+ * 	.rampUp(10000)
+ * 	.iterations(50)
+ * 	.run(user -&gt; {
+ * 		user.get(HomePage.class)
+ * 			.clickLogIn()
+ * 			.setUsername("user" + user.id());
+ * 		user.think();
+ * 	});
+ * </pre>
+ * 
+ * @author jason
+ *
+ */
+@FunctionalInterface
+public interface Journey {
+
+	/**
+	 * @param user the user taking the journey
+	 * @throws Exception if the journey fails, which is counted and reported
+	 */
+	void run(VirtualUser user) throws Exception;
+}
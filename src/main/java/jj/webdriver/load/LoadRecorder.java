@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import jj.webdriver.TraceListener;
+
+/**
+ * <p>
+ * Gathers the timings of every step taken by every user in a load run
+ * 
+ * <p>
+ * A step is named for the panel, the action, and what it acted on, less anything that
+ * changes from one user or one row to the next, so that the same step taken by every
+ * user is counted together.  Creating a panel is named without the URL it was created
+ * at, and numbers in locators, such as row indexes and generated ids, are masked.
+ * 
+ * @author jason
+ *
+ */
+final class LoadRecorder implements TraceListener {
+	
+	// enough to see what went wrong without keeping every failure of a long run
+	private static final int KEPT_FAILURES = 10;
+	
+	private static final Pattern NUMBERS = Pattern.compile("\\d+");
+	
+	static final class Samples {
+		
+		private long[] nanos = new long[64];
+		private int count = 0;
+		private int failures = 0;
+		
+		synchronized void add(long took, boolean failed) {
+			if (count == nanos.length) {
+				nanos = Arrays.copyOf(nanos, count * 2);
+			}
+			nanos[count++] = took;
+			if (failed) {
+				++failures;
+			}
+		}
+		
+		synchronized LoadReport.Step step(String name, long elapsedNanos) {
+			return new LoadReport.Step(name, Arrays.copyOf(nanos, count), failures, elapsedNanos);
+		}
+	}
+	
+	private final Map<String, Samples> steps = new ConcurrentHashMap<>();
+	
+	private final List<Throwable> failures = new ArrayList<>();
+	
+	@Override
+	public void finished(String category, String panel, String action, Object target, long startNanos, long durationNanos, Throwable failure) {
+		if (!ACTION.equals(category)) {
+			return;
+		}
+		String name = panel.substring(panel.lastIndexOf('.') + 1) + " " + action;
+		if (target != null && !"create".equals(action)) {
+			name += " " + pattern(target);
+		}
+		record(name, durationNanos, failure);
+	}
+	
+	/**
+	 * @return the target with its numbers masked
+	 */
+	static String pattern(Object target) {
+		return NUMBERS.matcher(String.valueOf(target)).replaceAll("#");
+	}
+	
+	void record(String step, long durationNanos, Throwable failure) {
+		steps.computeIfAbsent(step, s -> new Samples()).add(durationNanos, failure != null);
+		if (failure != null) {
+			synchronized (failures) {
+				if (failures.size() < KEPT_FAILURES) {
+					failures.add(failure);
+				}
+			}
+		}
+	}
+	
+	LoadReport report(int users, long elapsedNanos) {
+		List<LoadReport.Step> result = new ArrayList<>(steps.size());
+		steps.forEach((name, samples) -> result.add(samples.step(name, elapsedNanos)));
+		synchronized (failures) {
+			return new LoadReport(users, elapsedNanos, result, failures);
+		}
+	}
+}
@@ -0,0 +1,186 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * The results of a load run - throughput and latency percentiles for every
+ * step the users took, where a step is a panel action against a particular
+ * locator pattern, or a whole journey.
+ * 
+ * @author jason
+ *
+ */
+public final class LoadReport {
+	
+	/**
+	 * The name of the step that times whole journeys
+	 */
+	public static final String JOURNEY = "journey";
+	
+	/**
+	 * How one step performed over the whole run
+	 */
+	public static final class Step {
+		
+		private final String name;
+		// sorted
+		private final long[] nanos;
+		private final int failures;
+		private final long elapsedNanos;
+		
+		Step(String name, long[] nanos, int failures, long elapsedNanos) {
+			this.name = name;
+			this.nanos = nanos;
+			this.failures = failures;
+			this.elapsedNanos = elapsedNanos;
+			Arrays.sort(nanos);
+		}
+		
+		/**
+		 * @return the name of the step, which is the simple name of the panel interface,
+		 * the action, and the locator, or {@link LoadReport#JOURNEY}
+		 */
+		public String name() {
+			return name;
+		}
+		
+		/**
+		 * @return how many times the step was taken
+		 */
+		public int count() {
+			return nanos.length;
+		}
+		
+		/**
+		 * @return how many times the step failed
+		 */
+		public int failures() {
+			return failures;
+		}
+		
+		/**
+		 * @return how many times the step was taken per second of the run
+		 */
+		public double throughput() {
+			return elapsedNanos == 0 ? 0 : nanos.length * (double)TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+		}
+		
+		/**
+		 * @param percentile between 0 and 100
+		 * @return the latency under which the given percentage of the steps completed, in milliseconds
+		 */
+		public double percentile(double percentile) {
+			assert percentile >= 0 && percentile <= 100 : "percentiles are between 0 and 100";
+			if (nanos.length == 0) {
+				return 0;
+			}
+			int index = (int)Math.ceil(percentile / 100 * nanos.length) - 1;
+			return millis(nanos[Math.max(0, Math.min(index, nanos.length - 1))]);
+		}
+		
+		/**
+		 * @return the slowest time the step took, in milliseconds
+		 */
+		public double max() {
+			return nanos.length == 0 ? 0 : millis(nanos[nanos.length - 1]);
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%-60s %8d %6d %9.2f/s %9.1f %9.1f %9.1f %9.1f",
+				name, count(), failures, throughput(), percentile(50), percentile(90), percentile(99), max()
+			);
+		}
+	}
+	
+	private static double millis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+	
+	private final int users;
+	private final long elapsedNanos;
+	private final List<Step> steps;
+	private final List<Throwable> failures;
+	
+	LoadReport(int users, long elapsedNanos, List<Step> steps, List<Throwable> failures) {
+		this.users = users;
+		this.elapsedNanos = elapsedNanos;
+		List<Step> sorted = new ArrayList<>(steps);
+		sorted.sort(Comparator.comparing(Step::name));
+		this.steps = Collections.unmodifiableList(sorted);
+		this.failures = Collections.unmodifiableList(new ArrayList<>(failures));
+	}
+	
+	/**
+	 * @return how many users took part
+	 */
+	public int users() {
+		return users;
+	}
+	
+	/**
+	 * @return how long the run took, in milliseconds
+	 */
+	public long elapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+	}
+	
+	/**
+	 * @return every step, by name
+	 */
+	public List<Step> steps() {
+		return steps;
+	}
+	
+	/**
+	 * @param name the name of the step
+	 * @return the step, or null if no user took it
+	 */
+	public Step step(String name) {
+		for (Step step : steps) {
+			if (step.name().equals(name)) {
+				return step;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @return the first few failures, to see what went wrong
+	 */
+	public List<Throwable> failures() {
+		return failures;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder()
+			.append(users).append(" users over ").append(elapsedMillis()).append("ms\n")
+			.append(String.format("%-60s %8s %6s %11s %9s %9s %9s %9s", "step", "count", "failed", "throughput", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+		for (Step step : steps) {
+			sb.append('\n').append(step);
+		}
+		return sb.toString();
+	}
+}
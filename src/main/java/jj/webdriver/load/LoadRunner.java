@@ -0,0 +1,274 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Singleton;
+
+import jj.webdriver.TraceListener;
+import jj.webdriver.WebDriverProvider;
+import jj.webdriver.WebElementFinder;
+import jj.webdriver.finder.ImpatientWebElementFinder;
+import jj.webdriver.generator.PanelMethodGeneratorsModule;
+import jj.webdriver.panel.PanelBase;
+import jj.webdriver.panel.URLBase.BaseURL;
+import jj.webdriver.provider.JBrowserWebDriverProvider;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
+
+/**
+ * <p>
+ * Runs a {@link Journey} as a number of concurrent synthetic users, each with its
+ * own driver session, and reports the throughput and latency of every step they
+ * took, as timed by the panels themselves.
+ * 
+ * <p>
+ * Users are started evenly over the ramp-up period, and each takes the journey the
+ * configured number of times, or until the configured duration is up, thinking
+ * between journeys.  A journey that fails is counted and the user carries on with
+ * the next one.
+ * 
+ * <p>
+ * Configuration follows the {@link jj.webdriver.WebDriverRule}, and any driver can be
+ * used, but a headless one is the only sensible choice for more than a few users.
+ * 
+ * @author jason
+ *
+ */
+public class LoadRunner {
+	
+	private String baseUrl = "http://localhost:8080";
+	
+	private Class<? extends WebDriverProvider> webDriverProvider = JBrowserWebDriverProvider.class;
+	
+	private Class<? extends WebElementFinder> webElementFinder = ImpatientWebElementFinder.class;
+	
+	private Class<? extends PanelBase> panelBaseClass = PanelBase.class;
+	
+	private int users = 1;
+	
+	private long rampUpMillis = 0;
+	
+	private long thinkMillis = 0;
+	
+	private int iterations = 1;
+	
+	private long durationMillis = 0;
+	
+	/**
+	 * @param baseUrl the base URL of the application, as in {@link jj.webdriver.WebDriverRule#baseUrl(String)}
+	 * @return the runner being configured
+	 */
+	public LoadRunner baseUrl(final String baseUrl) {
+		assert baseUrl != null : "don't give me null!";
+		
+		this.baseUrl = baseUrl;
+		return this;
+	}
+	
+	/**
+	 * @param webDriverProvider the driver for each user. Default is the {@link JBrowserWebDriverProvider}
+	 * @return the runner being configured
+	 */
+	public LoadRunner driverProvider(Class<? extends WebDriverProvider> webDriverProvider) {
+		assert webDriverProvider != null : "don't give me null!";
+		
+		this.webDriverProvider = webDriverProvider;
+		return this;
+	}
+	
+	/**
+	 * @param webElementFinder how each user's panels wait for elements. Default is the {@link ImpatientWebElementFinder}
+	 * @return the runner being configured
+	 */
+	public LoadRunner webElementFinder(Class<? extends WebElementFinder> webElementFinder) {
+		assert webElementFinder != null : "don't give me null!";
+		
+		this.webElementFinder = webElementFinder;
+		return this;
+	}
+	
+	/**
+	 * @param panelBaseClass the class each user's panels are generated on. Default is {@link PanelBase}
+	 * @return the runner being configured
+	 */
+	public LoadRunner panelBaseClass(Class<? extends PanelBase> panelBaseClass) {
+		assert panelBaseClass != null : "don't give me null!";
+		
+		this.panelBaseClass = panelBaseClass;
+		return this;
+	}
+	
+	/**
+	 * @param users how many users take the journey at once. Default is 1
+	 * @return the runner being configured
+	 */
+	public LoadRunner users(int users) {
+		assert users > 0 : "there has to be someone";
+		
+		this.users = users;
+		return this;
+	}
+	
+	/**
+	 * @param rampUpMillis the period over which the users are started. Default is 0, all at once
+	 * @return the runner being configured
+	 */
+	public LoadRunner rampUp(long rampUpMillis) {
+		assert rampUpMillis >= 0 : "can't ramp up in negative time";
+		
+		this.rampUpMillis = rampUpMillis;
+		return this;
+	}
+	
+	/**
+	 * @param thinkMillis the average pause between journeys, and in {@link VirtualUser#think()}. Default is 0
+	 * @return the runner being configured
+	 */
+	public LoadRunner thinkTime(long thinkMillis) {
+		assert thinkMillis >= 0 : "can't think in negative time";
+		
+		this.thinkMillis = thinkMillis;
+		return this;
+	}
+	
+	/**
+	 * @param iterations how many times each user takes the journey. Default is 1
+	 * @return the runner being configured
+	 */
+	public LoadRunner iterations(int iterations) {
+		assert iterations > 0 : "the journey has to be taken";
+		
+		this.iterations = iterations;
+		return this;
+	}
+	
+	/**
+	 * @param durationMillis how long users keep taking the journey, at most. No new journeys
+	 * start after this, but the ones underway are finished. Default is 0, no limit
+	 * @return the runner being configured
+	 */
+	public LoadRunner duration(long durationMillis) {
+		assert durationMillis >= 0 : "can't run for negative time";
+		
+		this.durationMillis = durationMillis;
+		return this;
+	}
+	
+	/**
+	 * Runs the journey as configured, waiting for every user to finish
+	 * 
+	 * @param journey the journey
+	 * @return the report
+	 */
+	public LoadReport run(final Journey journey) {
+		assert journey != null : "don't give me null!";
+		
+		final LoadRecorder recorder = new LoadRecorder();
+		final long start = System.nanoTime();
+		final long deadline = durationMillis == 0 ? Long.MAX_VALUE : start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(users, runnable -> {
+			Thread thread = new Thread(runnable, "load user");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		try {
+			List<Future<?>> running = new ArrayList<>(users);
+			for (int i = 0; i < users; ++i) {
+				final int id = i;
+				final long delay = rampUpMillis * i / users;
+				running.add(executor.submit(() -> {
+					Thread.currentThread().setName("load user " + id);
+					VirtualUser.pause(delay);
+					runUser(id, journey, recorder, deadline);
+				}));
+			}
+			
+			for (Future<?> user : running) {
+				user.get();
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new AssertionError("interrupted while running load", ie);
+		} catch (ExecutionException ee) {
+			throw new AssertionError("a user couldn't run", ee.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		return recorder.report(users, System.nanoTime() - start);
+	}
+	
+	private void runUser(int id, Journey journey, LoadRecorder recorder, long deadline) {
+		Injector injector = injector(id, recorder);
+		WebDriver webDriver = injector.getInstance(WebDriver.class);
+		try {
+			VirtualUser user = new VirtualUser(id, injector, baseUrl, thinkMillis);
+			for (int i = 0; i < iterations && System.nanoTime() < deadline; ++i) {
+				if (i > 0) {
+					user.think();
+				}
+				user.iteration = i;
+				
+				long start = System.nanoTime();
+				Throwable failure = null;
+				try {
+					journey.run(user);
+				} catch (Exception | AssertionError e) {
+					failure = e;
+				}
+				recorder.record(LoadReport.JOURNEY, System.nanoTime() - start, failure);
+			}
+		} finally {
+			webDriver.quit();
+		}
+	}
+	
+	private Injector injector(final int id, final LoadRecorder recorder) {
+		return Guice.createInjector(
+			new AbstractModule() {
+				
+				@Override
+				protected void configure() {
+					bind(new TypeLiteral<Class<? extends PanelBase>>() {}).toInstance(panelBaseClass);
+					bind(String.class).annotatedWith(BaseURL.class).toInstance(baseUrl);
+					bind(WebDriver.class).toProvider(webDriverProvider).in(Singleton.class);
+					bind(WebElementFinder.class).to(webElementFinder);
+					bind(Logger.class).toInstance(LoggerFactory.getLogger("load user " + id));
+					Multibinder.newSetBinder(binder(), TraceListener.class).addBinding().toInstance(recorder);
+				}
+			},
+			new PanelMethodGeneratorsModule()
+		);
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.load;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import jj.webdriver.Page;
+import jj.webdriver.URL;
+import jj.webdriver.panel.PanelFactory;
+import jj.webdriver.panel.URLTemplate;
+
+import org.openqa.selenium.WebDriver;
+
+import com.google.inject.Injector;
+
+/**
+ * <p>
+ * A synthetic user, with its own driver session, taking a {@link Journey}
+ * over and over.
+ * 
+ * @author jason
+ *
+ */
+public final class VirtualUser {
+	
+	private final int id;
+	private final String baseUrl;
+	private final long thinkMillis;
+	private final WebDriver webDriver;
+	private final PanelFactory panelFactory;
+	
+	int iteration = 0;
+	
+	VirtualUser(int id, Injector injector, String baseUrl, long thinkMillis) {
+		this.id = id;
+		this.baseUrl = baseUrl;
+		this.thinkMillis = thinkMillis;
+		this.webDriver = injector.getInstance(WebDriver.class);
+		this.panelFactory = injector.getInstance(PanelFactory.class);
+	}
+	
+	/**
+	 * @return the number of this user, from 0
+	 */
+	public int id() {
+		return id;
+	}
+	
+	/**
+	 * @return how many times this user has taken the journey before this time
+	 */
+	public int iteration() {
+		return iteration;
+	}
+	
+	/**
+	 * Loads a page, the same way {@link jj.webdriver.WebDriverRule#get(Class, Object...)} does
+	 * 
+	 * @param <T> the configuration interface type for the page
+	 * @param pageInterface the configuration interface instance
+	 * @param queryArgs the arguments to the format string created to use as a URL
+	 * 
+	 * @return a live {@link Page} instance
+	 */
+	public <T extends Page> T get(final Class<T> pageInterface, final Object...queryArgs) {
+		assert pageInterface.getAnnotation(URL.class) != null : "page declarations must have a URL annotation";
+		
+		panelFactory.flush();
+		webDriver.get(URLTemplate.of(pageInterface).expand(baseUrl, queryArgs));
+		return panelFactory.create(pageInterface);
+	}
+	
+	/**
+	 * Pauses for somewhere between half and one and a half times the configured think
+	 * time, the way a person would between steps
+	 * 
+	 * @see LoadRunner#thinkTime(long)
+	 */
+	public void think() {
+		if (thinkMillis > 0) {
+			pause(thinkMillis / 2 + ThreadLocalRandom.current().nextLong(thinkMillis + 1));
+		}
+	}
+	
+	/**
+	 * @return the driver for this user's session
+	 */
+	public WebDriver webDriver() {
+		return webDriver;
+	}
+	
+	static void pause(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new AssertionError("interrupted", ie);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "virtual user " + id;
+	}
+}
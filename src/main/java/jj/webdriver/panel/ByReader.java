@@ -27,6 +27,15 @@ import jj.webdriver.By;
  */
 public class ByReader {
 	
+	/**
+	 * @param by the annotation
+	 * @return true if none of the attributes of the annotation are specified, as in
+	 * a default value of {@literal @}By
+	 */
+	public static boolean isEmpty(By by) {
+		return by == null || (by.value().isEmpty() && by.id().isEmpty() && by.className().isEmpty() && by.cssSelector().isEmpty() && by.xpath().isEmpty());
+	}
+	
 	private final By by;
 	
 	private final boolean needsResolution;
@@ -63,6 +72,21 @@ public class ByReader {
 		return value;
 	}
 	
+	/**
+	 * @return true if the annotation specifies a timeout or poll interval
+	 */
+	public boolean hasTiming() {
+		return by.timeout() > -1 || by.poll() > -1;
+	}
+	
+	public long timeout() {
+		return by.timeout();
+	}
+	
+	public long poll() {
+		return by.poll();
+	}
+	
 	private boolean extractResolution() {
 		return !empty(by.value());
 	}
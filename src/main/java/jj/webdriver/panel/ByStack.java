@@ -15,18 +15,44 @@
  */
 package jj.webdriver.panel;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import jj.webdriver.Panel;
 
+import org.openqa.selenium.By;
+
 /**
+ * <p>
  * maintains the current context of locators for a {@link Panel} hierarchy
  * 
+ * <p>
+ * Instances are flyweights.  Every hierarchy starts from the shared {@link #root()},
+ * pushing the same value onto the same stack produces the same instance, and each
+ * stack caches the ID locators resolved against it, so repeated interactions with
+ * nested panels don't allocate new prefixes, strings, or locators.
+ * 
  * @author jason
  *
  */
 public class ByStack {
 	
+	// past this many, the values are coming from data rather than declarations,
+	// and remembering them would just grow without bound
+	private static final int MAX_CACHED = 256;
+	
+	private static final ByStack ROOT = new ByStack();
+	
+	static ByStack root() {
+		return ROOT;
+	}
+	
 	private final String base;
 	
+	private final ConcurrentMap<String, ByStack> children = new ConcurrentHashMap<>();
+	
+	private final ConcurrentMap<String, By> ids = new ConcurrentHashMap<>();
+	
 	ByStack() {
 		base = "";
 	}
@@ -36,12 +62,34 @@ public class ByStack {
 	}
 	
 	ByStack push(String value) {
-		
-		return new ByStack(base + value);
+		ByStack result = children.get(value);
+		if (result == null) {
+			result = new ByStack(base + value);
+			if (children.size() < MAX_CACHED) {
+				ByStack existing = children.putIfAbsent(value, result);
+				result = existing == null ? result : existing;
+			}
+		}
+		return result;
 	}
 	
 	String resolve(String input) {
 		
-		return base + input;
+		return base.isEmpty() ? input : base + input;
+	}
+	
+	/**
+	 * @return a locator for the element with the given ID, resolved against this stack
+	 */
+	By id(String input) {
+		By result = ids.get(input);
+		if (result == null) {
+			result = By.id(resolve(input));
+			if (ids.size() < MAX_CACHED) {
+				By existing = ids.putIfAbsent(input, result);
+				result = existing == null ? result : existing;
+			}
+		}
+		return result;
 	}
 }
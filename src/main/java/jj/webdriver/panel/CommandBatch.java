@@ -0,0 +1,243 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * <p>
+ * Holds the clicks and sets made by panels while commands are being batched, and
+ * carries them out together when something needs to see their effects.
+ * 
+ * <p>
+ * If the driver supports scripting, a flush is a single script execution that locates
+ * each element and acts on it in order. Locators that can't be expressed as a CSS selector
+ * or XPath, and elements that aren't displayed yet, are handed back to be located with
+ * the finder, and the script picks up again from there. Elements are clicked with
+ * their <code>click()</code> method, which doesn't exercise everything a real user's
+ * interaction would. Values are assigned the same way {@link PanelBase} assigns them
+ * outside of a batch, and values that are to be typed are handed back for the driver to
+ * type before the script carries on.
+ * 
+ * <p>
+ * If a panel's container has gone stale by the time the script runs, the containers
+ * are located again and the script is tried once more.  A command that fails is
+ * reported with the stack of the panel method that made it.
+ * 
+ * @author jason
+ *
+ */
+final class CommandBatch {
+	
+	private static final class Command {
+		
+		final PanelBase panel;
+		final String action;
+		final By by;
+		// null for clicks
+		final String value;
+		// whether the value is assigned by script rather than typed
+		final boolean assign;
+		// where the command was made, for reporting failures
+		final Throwable origin = new Throwable();
+		
+		Command(PanelBase panel, String action, By by, String value, boolean assign) {
+			this.panel = panel;
+			this.action = action;
+			this.by = by;
+			this.value = value;
+			this.assign = assign;
+		}
+		
+		void perform(WebElement element) {
+			if (value == null) {
+				element.click();
+			} else {
+				element.sendKeys(value);
+			}
+		}
+		
+		@Override
+		public String toString() {
+			return action + " on [" + panel.name + "] " + by;
+		}
+	}
+	
+	private final List<Command> commands = new ArrayList<>();
+	
+	void add(PanelBase panel, String action, By by, String value, boolean assign) {
+		commands.add(new Command(panel, action, by, value, assign));
+	}
+	
+	boolean isEmpty() {
+		return commands.isEmpty();
+	}
+	
+	/**
+	 * carries out every pending command, in the order they were made
+	 */
+	void flush(WebDriver webDriver) {
+		if (commands.isEmpty()) {
+			return;
+		}
+		
+		List<Command> pending = new ArrayList<>(commands);
+		commands.clear();
+		
+		pending.get(0).panel.perform("flush", pending.size() + " commands", () -> execute(webDriver, pending));
+	}
+	
+	private void execute(WebDriver webDriver, List<Command> pending) {
+		long start = System.currentTimeMillis();
+		int scripts = 0;
+		
+		if (webDriver instanceof JavascriptExecutor) {
+			int next = 0;
+			WebElement located = null;
+			while (next < pending.size()) {
+				List<?> result;
+				try {
+					result = (List<?>)ScriptLibrary.call(webDriver, ScriptLibrary.BATCH, specs(pending, next, located));
+				} catch (StaleElementReferenceException sere) {
+					// something located earlier has been re-rendered since, so locate it again and try once more
+					++scripts;
+					for (int i = next; i < pending.size(); ++i) {
+						if (pending.get(i).panel.scope instanceof ElementRoot) {
+							((ElementRoot)pending.get(i).panel.scope).forget();
+						}
+					}
+					if (located != null) {
+						located = locate(pending.get(next));
+					}
+					try {
+						result = (List<?>)ScriptLibrary.call(webDriver, ScriptLibrary.BATCH, specs(pending, next, located));
+					} catch (StaleElementReferenceException again) {
+						throw failure(pending.get(next), "element went stale", again);
+					}
+				}
+				++scripts;
+				
+				if (result.size() == 1) {
+					break;
+				}
+				
+				next += ((Number)result.get(0)).intValue();
+				Command command = pending.get(next);
+				if ("type".equals(result.get(1))) {
+					// the script found it, but only the driver can type into it
+					try {
+						command.perform((WebElement)result.get(2));
+					} catch (RuntimeException re) {
+						throw failure(command, re.getMessage(), re);
+					}
+					++next;
+					located = null;
+				} else if ("missing".equals(result.get(1))) {
+					// the finder gets to wait for it, then the script carries on from there
+					located = locate(command);
+				} else {
+					throw failure(command, String.valueOf(result.get(2)), null);
+				}
+			}
+		} else {
+			for (Command command : pending) {
+				try {
+					command.perform(locate(command));
+				} catch (RuntimeException re) {
+					throw failure(command, re.getMessage(), re);
+				}
+			}
+		}
+		
+		pending.get(0).panel.logger.info("flushed {} batched commands in {}ms with {} scripts", pending.size(), System.currentTimeMillis() - start, scripts);
+	}
+	
+	private WebElement locate(Command command) {
+		try {
+			return command.panel.locate(command.by);
+		} catch (RuntimeException | AssertionError e) {
+			throw failure(command, "element not found", e);
+		}
+	}
+	
+	private static List<Object> specs(List<Command> pending, int next, WebElement located) {
+		List<Object> specs = new ArrayList<>(pending.size() - next);
+		for (int i = next; i < pending.size(); ++i) {
+			specs.add(spec(pending.get(i), i == next ? located : null));
+		}
+		return specs;
+	}
+	
+	private static List<Object> spec(Command command, WebElement located) {
+		String[] selector = located == null ? selector(command.by) : null;
+		SearchContext scope = command.panel.scope;
+		Object root = scope instanceof ElementRoot ? ((ElementRoot)scope).element() : scope;
+		if (root != null && !(root instanceof WebElement)) {
+			// no way to hand this to the script
+			selector = null;
+		}
+		return Arrays.asList(
+			command.value == null ? "click" : command.assign ? "assign" : "type",
+			command.value,
+			located,
+			selector == null ? null : selector[0],
+			selector == null ? null : selector[1],
+			root instanceof WebElement ? root : null
+		);
+	}
+	
+	/**
+	 * @return the locator as a [css|xpath, selector] pair the script can use, or null if it can't be
+	 */
+	static String[] selector(By by) {
+		if (by instanceof TimedBy) {
+			by = ((TimedBy)by).untimed();
+		}
+		String description = by.toString();
+		String value = description.substring(description.indexOf(": ") + 2);
+		if (by instanceof By.ById) {
+			return new String[] { "css", "[id=" + quoted(value) + "]" };
+		} else if (by instanceof By.ByName) {
+			return new String[] { "css", "[name=" + quoted(value) + "]" };
+		} else if (by instanceof By.ByClassName) {
+			return new String[] { "css", "[class~=" + quoted(value) + "]" };
+		} else if (by instanceof By.ByCssSelector || by instanceof By.ByTagName) {
+			return new String[] { "css", value };
+		} else if (by instanceof By.ByXPath) {
+			return new String[] { "xpath", value };
+		}
+		return null;
+	}
+	
+	private static String quoted(String value) {
+		return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+	
+	private static AssertionError failure(Command command, String problem, Throwable cause) {
+		AssertionError result = new AssertionError("batched " + command + " failed: " + problem, cause);
+		result.setStackTrace(command.origin.getStackTrace());
+		return result;
+	}
+}
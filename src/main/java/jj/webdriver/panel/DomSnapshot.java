@@ -0,0 +1,120 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * <p>
+ * A copy of every element in the document that has an id, taken in one script
+ * execution, so that reads and attribute reads by id can be answered without
+ * going back to the browser.
+ * 
+ * <p>
+ * The copy is thrown away whenever something might change the document - a click,
+ * a set, a navigation, a wait - and after a configured time, to catch changes the
+ * page makes by itself.  Anything it can't answer exactly the way the driver would,
+ * such as elements that aren't certainly displayed, attributes it didn't copy, or
+ * locators that aren't ids, goes to the driver as usual.
+ * 
+ * @author jason
+ *
+ */
+final class DomSnapshot {
+	
+	private static final String ID_PREFIX = "By.id: ";
+	
+	private final long ttlMillis;
+	
+	private Map<?, ?> elements = null;
+	
+	private long captured = 0;
+	
+	DomSnapshot(long ttlMillis) {
+		this.ttlMillis = ttlMillis;
+	}
+	
+	/**
+	 * @return the id the locator looks for, or null if it looks for something else
+	 */
+	static String id(By by) {
+		if (by instanceof TimedBy) {
+			by = ((TimedBy)by).untimed();
+		}
+		return by instanceof By.ById ? by.toString().substring(ID_PREFIX.length()) : null;
+	}
+	
+	/**
+	 * @return true if the element the locator finds can be answered for, capturing the
+	 * document if there isn't a current copy
+	 */
+	boolean knows(WebDriver webDriver, By by) {
+		String id = id(by);
+		if (id == null || !(webDriver instanceof JavascriptExecutor)) {
+			return false;
+		}
+		
+		if (elements == null || System.currentTimeMillis() - captured > ttlMillis) {
+			Object result = ScriptLibrary.call(webDriver, ScriptLibrary.SNAPSHOT);
+			elements = result instanceof Map ? (Map<?, ?>)result : Collections.emptyMap();
+			captured = System.currentTimeMillis();
+		}
+		
+		List<?> element = element(id);
+		// the driver would wait for it, or refuse to read it
+		return element != null && Boolean.TRUE.equals(element.get(2));
+	}
+	
+	/**
+	 * @return the text of the element, as {@link PanelBase} would read it, or null if the
+	 * browser couldn't read it that way. Only call when known
+	 */
+	String read(By by) {
+		Object text = element(id(by)).get(1);
+		return text == null ? null : String.valueOf(text);
+	}
+	
+	/**
+	 * @return true if the attribute of the element was copied, so it can be answered for. Only
+	 * call when known, since an attribute that wasn't copied might still have a value as a property
+	 */
+	boolean has(By by, String attribute) {
+		return ((Map<?, ?>)element(id(by)).get(3)).containsKey(attribute);
+	}
+	
+	/**
+	 * @return the attribute of the element, which might be null. Only call when it has it
+	 */
+	String attribute(By by, String attribute) {
+		Object value = ((Map<?, ?>)element(id(by)).get(3)).get(attribute);
+		return value == null ? null : String.valueOf(value);
+	}
+	
+	private List<?> element(String id) {
+		Object element = elements.get(id);
+		return element instanceof List && ((List<?>)element).size() == 4 ? (List<?>)element : null;
+	}
+	
+	void invalidate() {
+		elements = null;
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import java.util.List;
+import java.util.Objects;
+
+import jj.webdriver.WebElementFinder;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * <p>
+ * The container element of a panel, used as the scope of its lookups so they
+ * search the container's subtree instead of the whole document.  The element
+ * is located when first needed, and located again if it goes stale, which
+ * happens when the page re-renders the container.
+ * 
+ * @author jason
+ *
+ */
+final class ElementRoot implements SearchContext {
+	
+	private final WebDriver webDriver;
+	private final WebElementFinder finder;
+	
+	// null for the document
+	private final SearchContext parent;
+	private final By by;
+	
+	// -1 when the root is the single element located by the locator
+	private final int index;
+	
+	private WebElement element;
+	
+	ElementRoot(final WebDriver webDriver, final WebElementFinder finder, final SearchContext parent, final By by) {
+		this(webDriver, finder, parent, by, -1, null);
+	}
+	
+	ElementRoot(final WebDriver webDriver, final WebElementFinder finder, final SearchContext parent, final By by, final int index, final WebElement element) {
+		this.webDriver = webDriver;
+		this.finder = finder;
+		this.parent = parent;
+		this.by = by;
+		this.index = index;
+		this.element = element;
+	}
+	
+	private By located() {
+		return parent == null ? by : new ScopedBy(parent, by);
+	}
+	
+	WebElement element() {
+		if (element == null) {
+			if (index == -1) {
+				element = finder.find(webDriver, located());
+			} else {
+				List<WebElement> elements = finder.findAll(webDriver, located());
+				if (index >= elements.size()) {
+					throw new AssertionError("expected at least " + (index + 1) + " elements, found " + elements.size() + " " + located());
+				}
+				element = elements.get(index);
+			}
+		}
+		return element;
+	}
+	
+	/**
+	 * forgets the element, so it's located again the next time it's needed
+	 */
+	void forget() {
+		element = null;
+	}
+	
+	@Override
+	public List<WebElement> findElements(By child) {
+		try {
+			return element().findElements(child);
+		} catch (StaleElementReferenceException sere) {
+			forget();
+			return element().findElements(child);
+		}
+	}
+	
+	@Override
+	public WebElement findElement(By child) {
+		try {
+			return element().findElement(child);
+		} catch (StaleElementReferenceException sere) {
+			forget();
+			return element().findElement(child);
+		}
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof ElementRoot &&
+			Objects.equals(((ElementRoot)o).parent, parent) &&
+			((ElementRoot)o).by.equals(by) &&
+			((ElementRoot)o).index == index;
+	}
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(parent, by, index);
+	}
+	
+	@Override
+	public String toString() {
+		return (index == -1 ? by.toString() : by + "[" + index + "]") + (parent == null ? "" : " within " + parent);
+	}
+}
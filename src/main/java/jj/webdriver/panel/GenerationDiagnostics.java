@@ -0,0 +1,227 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>
+ * Records how panel implementations get generated - how long each interface and each
+ * of its methods took, which generator produced each method and how many generators
+ * were asked before it, and the source of each method body.  Given a directory, it
+ * also writes each interface there as soon as it has been generated, in a file named
+ * for the interface, so slow or surprising generation can be looked at afterwards.
+ * Interfaces that fail to generate are recorded and written too, with the methods
+ * generated up to the failure.
+ * 
+ * <p>
+ * Implementations are generated once per JVM and then shared, so this only sees the
+ * interfaces generated by the factories it was bound into, while it was bound.
+ * 
+ * @author jason
+ * 
+ * @see jj.webdriver.WebDriverRule#generationDiagnostics(Path)
+ */
+public final class GenerationDiagnostics {
+	
+	/**
+	 * How one method of a panel interface was generated
+	 */
+	public static final class MethodRecord {
+		
+		private final String method;
+		private final String generator;
+		private final int tried;
+		private final long nanos;
+		private final String body;
+		
+		MethodRecord(String method, String generator, int tried, long nanos, List<String> bodies) {
+			this.method = method;
+			this.generator = generator;
+			this.tried = tried;
+			this.nanos = nanos;
+			this.body = String.join(System.lineSeparator(), bodies);
+		}
+		
+		/** @return the method, as its name and parameter types */
+		public String method() {
+			return method;
+		}
+		
+		/** @return the class name of the generator that matched the method */
+		public String generator() {
+			return generator;
+		}
+		
+		/** @return how many generators were asked to match the method, including the one that did */
+		public int tried() {
+			return tried;
+		}
+		
+		/** @return how long matching, generating and compiling the method took */
+		public long nanos() {
+			return nanos;
+		}
+		
+		/** @return the source the generator gave as the body of the method */
+		public String body() {
+			return body;
+		}
+		
+		@Override
+		public String toString() {
+			return method + " by " + generator + " after trying " + tried + " in " + millis(nanos);
+		}
+	}
+	
+	/**
+	 * How one panel interface was generated
+	 */
+	public static final class InterfaceRecord {
+		
+		private final String panelInterface;
+		private final String panelBase;
+		private final long nanos;
+		private final List<MethodRecord> methods;
+		private final String failure;
+		
+		InterfaceRecord(String panelInterface, String panelBase, long nanos, List<MethodRecord> methods, Throwable failure) {
+			this.panelInterface = panelInterface;
+			this.panelBase = panelBase;
+			this.nanos = nanos;
+			this.methods = Collections.unmodifiableList(new ArrayList<>(methods));
+			this.failure = failure == null ? null : String.valueOf(failure);
+		}
+		
+		/** @return the name of the panel interface */
+		public String panelInterface() {
+			return panelInterface;
+		}
+		
+		/** @return the name of the class the implementation extends */
+		public String panelBase() {
+			return panelBase;
+		}
+		
+		/** @return how long generating the whole implementation took */
+		public long nanos() {
+			return nanos;
+		}
+		
+		/** @return the methods, in the order they were generated, up to and including one that failed */
+		public List<MethodRecord> methods() {
+			return methods;
+		}
+		
+		/** @return what generation failed with, or null if it succeeded */
+		public String failure() {
+			return failure;
+		}
+		
+		@Override
+		public String toString() {
+			MethodRecord slowest = null;
+			for (MethodRecord method : methods) {
+				if (slowest == null || method.nanos > slowest.nanos) {
+					slowest = method;
+				}
+			}
+			return panelInterface + " on " + panelBase + ", " + methods.size() + " methods in " + millis(nanos) +
+				(slowest == null ? "" : ", slowest " + slowest) +
+				(failure == null ? "" : ", failed with " + failure);
+		}
+	}
+	
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.3fms", nanos / 1_000_000.0);
+	}
+	
+	private final Path dumpDir;
+	
+	private final List<InterfaceRecord> interfaces = new CopyOnWriteArrayList<>();
+	
+	/**
+	 * @param dumpDir the directory to write generated interfaces to, or null to only record them
+	 */
+	public GenerationDiagnostics(Path dumpDir) {
+		assert dumpDir == null || Files.isDirectory(dumpDir) : "must be a directory!";
+		this.dumpDir = dumpDir;
+	}
+	
+	/**
+	 * @return the interfaces generated so far, in the order they were generated
+	 */
+	public List<InterfaceRecord> interfaces() {
+		return Collections.unmodifiableList(interfaces);
+	}
+	
+	/**
+	 * @param panelInterface the name of a panel interface
+	 * @return the file the interface is written to, which only exists if it was generated
+	 * while there was a directory to write to
+	 */
+	public Path dumpFile(String panelInterface) {
+		assert dumpDir != null : "there is no directory to write to";
+		return dumpDir.resolve(panelInterface + ".txt");
+	}
+	
+	void generated(InterfaceRecord record) {
+		interfaces.add(record);
+		if (dumpDir != null) {
+			dump(record);
+		}
+	}
+	
+	private void dump(InterfaceRecord record) {
+		StringBuilder sb = new StringBuilder()
+			.append("// ").append(record.panelInterface).append('\n')
+			.append("// generated on ").append(record.panelBase).append(" in ").append(millis(record.nanos)).append('\n');
+		if (record.failure != null) {
+			sb.append("// failed with ").append(record.failure).append('\n');
+		}
+		for (MethodRecord method : record.methods) {
+			sb.append('\n')
+				.append("// ").append(method).append('\n')
+				.append(method.body).append('\n');
+		}
+		
+		Path file = dumpFile(record.panelInterface);
+		try {
+			Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+		} catch (IOException ioe) {
+			throw new AssertionError("could not write generation diagnostics to " + file, ioe);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		long nanos = 0;
+		int methods = 0;
+		for (InterfaceRecord record : interfaces) {
+			nanos += record.nanos;
+			methods += record.methods.size();
+		}
+		return "generated " + interfaces.size() + " interfaces with " + methods + " methods in " + millis(nanos);
+	}
+}
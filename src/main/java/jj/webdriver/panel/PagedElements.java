@@ -0,0 +1,194 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import jj.webdriver.Paging;
+import jj.webdriver.WebElementFinder;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * <p>
+ * Iterates the elements matching a locator in chunks, loading more according
+ * to a {@link Paging} configuration only when the current window of elements
+ * is used up.  The window is everything the locator matches on the current page,
+ * or after the current scroll, and only it is held.  Chunking bounds how many of
+ * those become results at a time, not how many are looked up.
+ * 
+ * @author jason
+ *
+ */
+class PagedElements implements Iterator<List<WebElement>> {
+	
+	private static final long POLL_MILLIS = 100;
+	
+	// how long to wait for a new page to replace the old one
+	private static final long PAGE_TIMEOUT_MILLIS = 10000;
+	
+	// how long to wait for something new to show up after scrolling
+	private static final long SCROLL_TIMEOUT_MILLIS = 2000;
+	
+	/**
+	 * flattens chunks into individual results, transforming each chunk as it is reached
+	 */
+	static <T> Iterator<T> flatten(final Iterator<List<WebElement>> chunks, final Function<List<WebElement>, List<T>> transform) {
+		return new Iterator<T>() {
+			
+			private Iterator<T> current = Collections.emptyIterator();
+			
+			@Override
+			public boolean hasNext() {
+				while (!current.hasNext() && chunks.hasNext()) {
+					current = transform.apply(chunks.next()).iterator();
+				}
+				return current.hasNext();
+			}
+			
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return current.next();
+			}
+		};
+	}
+	
+	private final WebDriver webDriver;
+	private final WebElementFinder finder;
+	private final By by;
+	private final By nextControl;
+	private final boolean scroll;
+	private final int chunk;
+	
+	private List<WebElement> window = null;
+	private int position = 0;
+	private boolean exhausted = false;
+	
+	PagedElements(WebDriver webDriver, WebElementFinder finder, By by, By next, boolean scroll, int chunk) {
+		assert !scroll || webDriver instanceof JavascriptExecutor : "scrolling for more elements requires a driver that executes javascript";
+		assert chunk > 0 : "chunks must have at least one element";
+		this.webDriver = webDriver;
+		this.finder = finder;
+		this.by = by;
+		this.nextControl = next;
+		this.scroll = scroll;
+		this.chunk = chunk;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		if (window == null) {
+			window = finder.findAll(webDriver, by);
+		}
+		while (position == window.size() && !exhausted) {
+			loadMore();
+		}
+		return position < window.size();
+	}
+	
+	@Override
+	public List<WebElement> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		int end = Math.min(position + chunk, window.size());
+		List<WebElement> result = window.subList(position, end);
+		position = end;
+		return result;
+	}
+	
+	private void loadMore() {
+		if (nextControl != null) {
+			nextPage();
+		} else if (scroll && !window.isEmpty()) {
+			scrollForMore();
+		} else {
+			exhausted = true;
+		}
+	}
+	
+	private void nextPage() {
+		List<WebElement> controls = webDriver.findElements(nextControl);
+		if (controls.isEmpty() || !controls.get(0).isDisplayed() || !controls.get(0).isEnabled()) {
+			exhausted = true;
+			return;
+		}
+		
+		WebElement marker = window.isEmpty() ? null : window.get(0);
+		controls.get(0).click();
+		
+		long deadline = System.currentTimeMillis() + PAGE_TIMEOUT_MILLIS;
+		while (marker != null && !isStale(marker)) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("clicked " + nextControl + " but the elements located by " + by + " were not replaced");
+			}
+			pause();
+		}
+		
+		window = finder.findAll(webDriver, by);
+		position = 0;
+		exhausted = window.isEmpty();
+	}
+	
+	private void scrollForMore() {
+		WebElement last = window.get(window.size() - 1);
+		ScriptLibrary.call(webDriver, ScriptLibrary.SCROLL_INTO_VIEW, last);
+		
+		long deadline = System.currentTimeMillis() + SCROLL_TIMEOUT_MILLIS;
+		do {
+			List<WebElement> current = finder.findAll(webDriver, by);
+			int index = current.indexOf(last);
+			if (index > -1 && index < current.size() - 1) {
+				// virtualized lists drop what scrolled off, so this stays bounded
+				window = current;
+				position = index + 1;
+				return;
+			}
+			pause();
+		} while (System.currentTimeMillis() < deadline);
+		
+		exhausted = true;
+	}
+	
+	private boolean isStale(WebElement element) {
+		try {
+			element.isEnabled();
+			return false;
+		} catch (StaleElementReferenceException sere) {
+			return true;
+		}
+	}
+	
+	private void pause() {
+		try {
+			Thread.sleep(POLL_MILLIS);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new AssertionError("interrupted while waiting for more elements located by " + by, ie);
+		}
+	}
+}
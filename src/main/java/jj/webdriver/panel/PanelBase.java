@@ -15,11 +15,31 @@
  */
 package jj.webdriver.panel;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.regex.Pattern;
+import java.util.stream.StreamSupport;
+
+import jj.webdriver.Input;
 import jj.webdriver.Page;
 import jj.webdriver.Panel;
+import jj.webdriver.Ready;
+import jj.webdriver.TraceListener;
 import jj.webdriver.WebElementFinder;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.slf4j.Logger;
@@ -50,6 +70,28 @@ import org.slf4j.Logger;
  */
 public abstract class PanelBase implements Page {
 	
+	// the location and load state of the document, in one round trip
+	// how long an element gets to disappear, unless its locator says otherwise
+	private static final long GONE_TIMEOUT = 2000;
+	private static final long GONE_POLL = 50;
+	
+	private static final long OUTCOME_POLL = 50;
+	
+	private static final long NAVIGATION_TIMEOUT = 10000;
+	private static final long NAVIGATION_POLL = 50;
+	
+	// a load that completes somewhere unexpected has to stay put this long to be a failure,
+	// which keeps client-side redirects and history manipulation from failing early
+	private static final long NAVIGATION_SETTLE = 500;
+	
+	// the name of the interface a generated class implements, worked out once per class
+	private static final ClassValue<String> NAMES = new ClassValue<String>() {
+		@Override
+		protected String computeValue(Class<?> type) {
+			return type.getInterfaces()[0].getName();
+		}
+	};
+	
 	protected final WebDriver webDriver;
 	protected final WebElementFinder finder;
 	protected final Logger logger;
@@ -57,7 +99,16 @@ public abstract class PanelBase implements Page {
 	protected final PanelFactory panelFactory;
 	protected final URLBase urlBase;
 	
-	protected ByStack byStack = new ByStack();
+	protected ByStack byStack = ByStack.root();
+	
+	// if not null, all lookups are relative to this
+	protected SearchContext scope = null;
+	
+	// the URL of the page this was created on, if known
+	protected String url = null;
+	
+	// once a readiness condition has been met, lookups skip the finder
+	protected boolean ready = false;
 
 	PanelBase(
 		final WebDriver webDriver,
@@ -70,58 +121,485 @@ public abstract class PanelBase implements Page {
 		this.finder = finder;
 		this.panelFactory = panelFactory;
 		this.logger = logger;
-		this.name = getClass().getInterfaces()[0].getName();
+		this.name = NAMES.get(getClass());
 		this.urlBase = urlBase;
 		
 		logger.info("[{}] created", name);
-		if (Page.class.isAssignableFrom(getClass().getInterfaces()[0])) {
-			logger.info("url is {}", currentUrl());
-		}
 	}
 	
 	private void log(String action, By by) {
 		logger.info("[{}] {} - {}", name, action, by);
 	}
 	
+	/**
+	 * Does some work against the browser, telling any {@link TraceListener}s how it went
+	 */
+	<T> T act(String action, Object target, Supplier<T> work) {
+		return TraceListener.trace(panelFactory.traceListeners(), TraceListener.ACTION, name, action, target, work);
+	}
+	
+	void perform(String action, Object target, Runnable work) {
+		act(action, target, () -> {
+			work.run();
+			return null;
+		});
+	}
+	
+	private By scoped(By by) {
+		return scope == null ? by : new ScopedBy(scope, by);
+	}
+	
 	private WebElement find(By by) {
 		
-		return finder.find(webDriver, by);
+		if (ready) {
+			try {
+				return webDriver.findElement(scoped(by));
+			} catch (NoSuchElementException nsee) {
+				// not there yet, so it gets the full wait
+			}
+		}
+		
+		if (by instanceof TimedBy) {
+			TimedBy timed = (TimedBy)by;
+			return finder.find(webDriver, scoped(timed.untimed()), timed.timeout(), timed.poll());
+		}
+		
+		return finder.find(webDriver, scoped(by));
+	}
+	
+	/**
+	 * Locates an element for a batched command
+	 */
+	WebElement locate(By by) {
+		return find(by);
+	}
+	
+	/**
+	 * Carries out any batched commands, so their effects can be seen
+	 */
+	private void flush() {
+		panelFactory.flush();
+	}
+	
+	/**
+	 * @return the snapshot of the document, if there is one that can answer for the locator,
+	 * and for any of the given attributes
+	 */
+	private DomSnapshot snapshot(By by, String...attributes) {
+		DomSnapshot snapshot = panelFactory.snapshot();
+		// ids are only unique in the whole document
+		if (snapshot == null || scope != null || !snapshot.knows(webDriver, by)) {
+			return null;
+		}
+		for (String attribute : attributes) {
+			if (!snapshot.has(by, attribute)) {
+				return null;
+			}
+		}
+		return snapshot;
+	}
+	
+	private List<WebElement> findAll(By by) {
+		
+		// nothing to wait for, so the budget doesn't matter
+		return finder.findAll(webDriver, scoped(untimed(by)));
+	}
+	
+	private static By untimed(By by) {
+		return by instanceof TimedBy ? ((TimedBy)by).untimed() : by;
 	}
 	
 	void byStack(ByStack byStack) {
 		this.byStack = byStack;
 	}
 	
+	void scope(SearchContext scope) {
+		this.scope = scope;
+	}
+	
+	/**
+	 * The scope of a panel rooted at the element located within the given scope, so its
+	 * lookups search only within that element
+	 */
+	SearchContext root(SearchContext parent, By by) {
+		return new ElementRoot(webDriver, finder, parent, untimed(by));
+	}
+	
+	/**
+	 * Produces a nested panel with the given hierarchy and scope, reusing the last one
+	 * if the factory is configured to
+	 */
+	<T extends Panel> T panel(Class<T> panelInterface, ByStack byStack, SearchContext scope) {
+		return panelFactory.reuse(panelInterface, byStack, scope, () -> makePanel(panelInterface, byStack, scope));
+	}
+	
 	<T extends Panel> T makePanel(Class<T> panelInterface) {
-		return panelFactory.create(panelInterface);
+		return makePanel(panelInterface, ByStack.root(), null);
+	}
+	
+	private <T extends Panel> T makePanel(Class<T> panelInterface, ByStack byStack, SearchContext scope) {
+		// the factory places it before awaiting its readiness, so the condition is looked for where it lives
+		T result = panelFactory.create(panelInterface, byStack, scope);
+		if (((PanelBase)result).url == null) {
+			((PanelBase)result).url = url;
+		}
+		((PanelBase)result).ready |= ready;
+		return result;
+	}
+	
+	/**
+	 * Waits for the {@link Ready} condition declared on the interface, if there is one
+	 */
+	void awaitReady() {
+		Ready condition = getClass().getInterfaces()[0].getAnnotation(Ready.class);
+		if (condition != null) {
+			By selector = ByReader.isEmpty(condition.selector()) ? null : scoped(ReadinessGate.by(condition.selector(), byStack));
+			long took = new ReadinessGate(webDriver, condition, selector).await(name);
+			logger.info("[{}] ready in {}ms", name, took);
+			ready = true;
+		}
+	}
+	
+	/**
+	 * Produces one panel per element matching the locator, using a single lookup. Each
+	 * panel shares this panel's {@link ByStack} and searches relative to its element,
+	 * which is located again by position if it goes stale.
+	 */
+	<T extends Panel> List<T> makePanels(Class<T> panelInterface, By by) {
+		flush();
+		log("panels", by);
+		List<WebElement> elements = act("panels", by, () -> findAll(by));
+		List<T> result = new ArrayList<>(elements.size());
+		for (int i = 0; i < elements.size(); ++i) {
+			// each panel can find its element again by position if it goes stale
+			result.add(makePanel(panelInterface, new ElementRoot(webDriver, finder, scope, untimed(by), i, elements.get(i))));
+		}
+		return result;
 	}
 	
+	private <T extends Panel> List<T> makePanels(Class<T> panelInterface, List<WebElement> elements) {
+		List<T> result = new ArrayList<>(elements.size());
+		for (WebElement element : elements) {
+			result.add(makePanel(panelInterface, element));
+		}
+		return result;
+	}
+	
+	private <T extends Panel> T makePanel(Class<T> panelInterface, SearchContext scope) {
+		return makePanel(panelInterface, byStack, scope);
+	}
+	
+	/**
+	 * Waits for the browser to finish loading a URL matching the {@link jj.webdriver.URL}
+	 * of the given page, then creates it. Fails as soon as a load completes at a URL
+	 * that isn't this page's and doesn't match, rather than waiting out the timeout.
+	 */
 	<T extends Page> T navigateTo(Class<T> pageInterface) {
-		
-		// if the URL doesn't match, log it? no reason, really
-		// in fact i think the URL rule might get relaxed, and
-		// the Page/Panel distinction weakened a bit
-		return panelFactory.create(pageInterface);
+		flush();
+		panelFactory.changed();
+		String location = act("navigate", pageInterface.getName(), () -> awaitNavigation(pageInterface, urlBase.pattern(pageInterface)));
+		return panelFactory.create(pageInterface, location);
+	}
+	
+	private String awaitNavigation(Class<? extends Page> pageInterface, Pattern expected) {
+		long start = System.currentTimeMillis();
+		String last = null;
+		long lastChanged = start;
+		while (true) {
+			String[] location = location();
+			long now = System.currentTimeMillis();
+			
+			if (!location[0].equals(last)) {
+				last = location[0];
+				lastChanged = now;
+			}
+			
+			boolean complete = "complete".equals(location[1]);
+			if (complete && expected.matcher(location[0]).matches()) {
+				logger.info("[{}] navigated to {} in {}ms", name, location[0], now - start);
+				return location[0];
+			}
+			
+			if (complete && url != null && !url.equals(location[0]) && now - lastChanged >= NAVIGATION_SETTLE) {
+				throw new AssertionError(
+					"expected to navigate to " + pageInterface.getName() + " matching " + expected +
+					" but landed on " + location[0]
+				);
+			}
+			
+			if (now - start >= NAVIGATION_TIMEOUT) {
+				throw new AssertionError(
+					"timed out after " + NAVIGATION_TIMEOUT + "ms waiting to navigate to " + pageInterface.getName() +
+					" matching " + expected + ", browser is at " + location[0] + " (" + location[1] + ")"
+				);
+			}
+			
+			try {
+				Thread.sleep(NAVIGATION_POLL);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new AssertionError("interrupted while waiting to navigate to " + pageInterface.getName(), ie);
+			}
+		}
+	}
+	
+	private String[] location() {
+		if (webDriver instanceof JavascriptExecutor) {
+			Object result = ScriptLibrary.call(webDriver, ScriptLibrary.LOCATION);
+			if (result instanceof List && ((List<?>)result).size() == 2) {
+				return new String[] { String.valueOf(((List<?>)result).get(0)), String.valueOf(((List<?>)result).get(1)) };
+			}
+		}
+		// without scripting, selenium has already waited for the load
+		return new String[] { String.valueOf(webDriver.getCurrentUrl()), "complete" };
 	}
 	
 	void click(By by) {
 		log("click", by);
-		find(by).click();
+		panelFactory.changed();
+		CommandBatch batch = panelFactory.batch();
+		if (batch != null) {
+			batch.add(this, "click", by, null, false);
+		} else {
+			perform("click", by, () -> find(by).click());
+		}
 	}
 	
 	void set(By by, String value) {
+		set(by, value, null);
+	}
+	
+	/**
+	 * Types the value into the matching element, whatever the configuration says
+	 */
+	void type(By by, String value) {
+		set(by, value, Input.Mode.KEYSTROKES);
+	}
+	
+	/**
+	 * Appends the value to the matching element directly and fires input and change events,
+	 * if the driver supports scripts, whatever the configuration says
+	 */
+	void assign(By by, String value) {
+		set(by, value, Input.Mode.ASSIGN);
+	}
+	
+	private void set(By by, String value, Input.Mode mode) {
 		log("set " + value, by);
-		find(by).sendKeys(value);
+		panelFactory.changed();
+		boolean assign = mode == null ? panelFactory.assignInputs() : mode == Input.Mode.ASSIGN;
+		CommandBatch batch = panelFactory.batch();
+		if (batch != null) {
+			batch.add(this, "set " + value, by, value, assign);
+		} else {
+			perform("set", by, () -> {
+				WebElement element = find(by);
+				if (assign && webDriver instanceof JavascriptExecutor) {
+					script(ScriptLibrary.ASSIGN, element, value);
+				} else {
+					element.sendKeys(value);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Checks for a matching element right now, without involving the finder and its waiting
+	 */
+	boolean present(By by) {
+		flush();
+		log("present", by);
+		return act("present", by, () -> !webDriver.findElements(scoped(untimed(by))).isEmpty());
+	}
+	
+	/**
+	 * Waits until no matching element is displayed, for a short time or the time configured on
+	 * the locator, without involving the finder
+	 */
+	void awaitGone(By by) {
+		flush();
+		panelFactory.changed();
+		log("await gone", by);
+		perform("await gone", by, () -> awaitGone(by, untimed(by)));
+	}
+	
+	private void awaitGone(By by, By untimed) {
+		long timeout = by instanceof TimedBy && ((TimedBy)by).timeout() > -1 ? ((TimedBy)by).timeout() : GONE_TIMEOUT;
+		long poll = by instanceof TimedBy && ((TimedBy)by).poll() > -1 ? ((TimedBy)by).poll() : GONE_POLL;
+		By located = scoped(untimed);
+		long start = System.currentTimeMillis();
+		while (displayed(webDriver.findElements(located))) {
+			if (System.currentTimeMillis() - start >= timeout) {
+				throw new AssertionError("element still displayed after " + timeout + "ms " + by);
+			}
+			try {
+				Thread.sleep(poll);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new AssertionError("interrupted while waiting for an element to go away " + by, ie);
+			}
+		}
+	}
+	
+	private boolean displayed(List<WebElement> elements) {
+		for (WebElement element : elements) {
+			try {
+				if (element.isDisplayed()) {
+					return true;
+				}
+			} catch (StaleElementReferenceException sere) {
+				// removed, which counts as gone
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Polls every locator in one loop until an element matching one of them is displayed,
+	 * then produces the corresponding panel, or navigates to the corresponding page. Earlier
+	 * outcomes win ties.
+	 */
+	Panel race(Class<?>[] outcomes, By[] locators, long timeout) {
+		flush();
+		panelFactory.changed();
+		assert outcomes.length == locators.length;
+		logger.info("[{}] awaiting the first of {}", name, Arrays.asList(locators));
+		int winner = act("race", Arrays.asList(locators), () -> awaitFirst(locators, timeout));
+		@SuppressWarnings("unchecked")
+		Class<? extends Panel> outcome = (Class<? extends Panel>)outcomes[winner];
+		return Page.class.isAssignableFrom(outcome) ?
+			navigateTo(outcome.asSubclass(Page.class)) :
+			makePanel(outcome, scope);
+	}
+	
+	private int awaitFirst(By[] locators, long timeout) {
+		long start = System.currentTimeMillis();
+		while (true) {
+			for (int i = 0; i < locators.length; ++i) {
+				if (displayed(webDriver.findElements(scoped(untimed(locators[i]))))) {
+					logger.info("[{}] {} appeared after {}ms", name, locators[i], System.currentTimeMillis() - start);
+					return i;
+				}
+			}
+			if (System.currentTimeMillis() - start >= timeout) {
+				throw new AssertionError("none of the outcomes appeared within " + timeout + "ms " + Arrays.asList(locators));
+			}
+			try {
+				Thread.sleep(OUTCOME_POLL);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new AssertionError("interrupted while waiting for an outcome " + Arrays.asList(locators), ie);
+			}
+		}
 	}
 	
 	String attribute(By by, String attribute) {
+		flush();
 		logger.info("{} {} attribute {}", name, by, attribute);
-		return find(by).getAttribute(attribute);
+		return act("attribute", by, () -> {
+			DomSnapshot snapshot = snapshot(by, attribute);
+			return snapshot != null ? snapshot.attribute(by, attribute) : find(by).getAttribute(attribute);
+		});
+	}
+	
+	/**
+	 * Reads several attributes of the element matching the locator, using a single lookup,
+	 * and a single script execution if the driver supports it.
+	 */
+	Map<String, String> attributes(By by, String[] attributes) {
+		flush();
+		logger.info("{} {} attributes {}", name, by, Arrays.asList(attributes));
+		return act("attributes", by, () -> {
+			Map<String, String> result = new LinkedHashMap<>();
+			DomSnapshot snapshot = snapshot(by, attributes);
+			if (snapshot != null) {
+				for (String attribute : attributes) {
+					result.put(attribute, snapshot.attribute(by, attribute));
+				}
+			} else if (webDriver instanceof JavascriptExecutor) {
+				Map<?, ?> values = (Map<?, ?>)script(ScriptLibrary.ATTRIBUTES, find(by), Arrays.asList(attributes));
+				for (String attribute : attributes) {
+					Object value = values.get(attribute);
+					result.put(attribute, value == null ? null : String.valueOf(value));
+				}
+			} else {
+				WebElement element = find(by);
+				for (String attribute : attributes) {
+					result.put(attribute, element.getAttribute(attribute));
+				}
+			}
+			return result;
+		});
 	}
 	
 	String read(By by) {
+		flush();
 		log("read", by);
-		WebElement element = find(by);
+		return act("read", by, () -> {
+			DomSnapshot snapshot = snapshot(by);
+			String text = snapshot != null ? snapshot.read(by) : null;
+			return text != null ? text : read(find(by));
+		});
+	}
+	
+	/**
+	 * Lazily produces one panel per element matching the locator, loading more elements
+	 * as described by {@link jj.webdriver.Paging} when needed
+	 */
+	<T extends Panel> Iterator<T> iteratePanels(final Class<T> panelInterface, By by, By next, boolean scroll, int chunk) {
+		flush();
+		log("iterate panels", by);
+		return PagedElements.flatten(
+			new PagedElements(webDriver, finder, scoped(by), next == null ? null : scoped(next), scroll, chunk),
+			elements -> makePanels(panelInterface, elements)
+		);
+	}
+	
+	/**
+	 * Lazily reads the elements matching the locator a chunk at a time, loading more
+	 * elements as described by {@link jj.webdriver.Paging} when needed
+	 */
+	Iterator<String> iterateReads(By by, By next, boolean scroll, int chunk) {
+		flush();
+		log("iterate reads", by);
+		return PagedElements.flatten(
+			new PagedElements(webDriver, finder, scoped(by), next == null ? null : scoped(next), scroll, chunk),
+			this::readAll
+		);
+	}
+	
+	static <T> Stream<T> stream(Iterator<T> iterator) {
+		// not NONNULL - reads come back null for inputs without a value
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+	}
+	
+	/**
+	 * Reads every element matching the locator, using a single lookup, and a single script
+	 * execution if the driver supports it.
+	 */
+	List<String> readAll(By by) {
+		flush();
+		log("read all", by);
+		return act("read all", by, () -> readAll(findAll(by)));
+	}
+	
+	private List<String> readAll(List<WebElement> elements) {
+		List<String> result = new ArrayList<>(elements.size());
+		if (webDriver instanceof JavascriptExecutor && !elements.isEmpty()) {
+			List<?> texts = (List<?>)script(ScriptLibrary.READ_ALL, elements);
+			for (int i = 0; i < texts.size(); ++i) {
+				// the browser couldn't read it the way the driver does
+				result.add(texts.get(i) == null ? read(elements.get(i)) : String.valueOf(texts.get(i)));
+			}
+		} else {
+			for (WebElement element : elements) {
+				result.add(read(element));
+			}
+		}
+		return result;
+	}
+	
+	private String read(WebElement element) {
 		// does this belong here or should
 		// there be separate generation patterns?
 		switch(element.getTagName()) {
@@ -134,12 +612,22 @@ public abstract class PanelBase implements Page {
 		}
 	}
 	
+	/**
+	 * Calls one of the {@link ScriptLibrary} functions, installing the library in the
+	 * page first if need be.  The driver must be a {@link JavascriptExecutor}
+	 */
+	Object script(String function, Object...args) {
+		return ScriptLibrary.call(webDriver, function, args);
+	}
+	
 	@Override
 	public final String currentUrl() {
+		flush();
 		return webDriver.getCurrentUrl();
 	}
 	
 	public String pageSource() {
+		flush();
 		return webDriver.getPageSource();
 	}
 	
@@ -15,9 +15,23 @@
  */
 package jj.webdriver.panel;
 
-import java.util.HashMap;
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import javassist.ClassPool;
 import javassist.CtClass;
@@ -29,13 +43,22 @@ import javassist.bytecode.ConstPool;
 import javassist.bytecode.annotation.Annotation;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Qualifier;
 import javax.inject.Singleton;
 
+import jj.webdriver.TraceListener;
 import jj.webdriver.Page;
+import jj.webdriver.PageLoadListener;
 import jj.webdriver.Panel;
 import jj.webdriver.URL;
 
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+
 import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.spi.InjectionPoint;
 
 /**
  * produces page objects according to the declarations
@@ -47,7 +70,51 @@ import com.google.inject.Injector;
 @Singleton
 public class PanelFactory {
 	
-	private static final Map<Class<? extends Panel>, Class<? extends Panel>> implementations = new HashMap<>();
+	/**
+	 * <p>
+	 * Qualifies a boolean binding that, if true, makes panel getters hand back the same
+	 * panel instance for the same hierarchy and scope until the next page is created,
+	 * instead of a new one every call
+	 */
+	@Qualifier
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({FIELD, PARAMETER, METHOD})
+	public @interface ReusePanels {}
+	
+	/**
+	 * <p>
+	 * Qualifies a boolean binding that, if true, makes panels queue up their clicks and sets
+	 * and carry them out together the next time something reads from the browser, navigates,
+	 * or calls {@link PanelFactory#flush()}
+	 */
+	@Qualifier
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({FIELD, PARAMETER, METHOD})
+	public @interface BatchCommands {}
+	
+	/**
+	 * <p>
+	 * Qualifies a long binding that, if more than zero, makes panels answer reads by id from a
+	 * snapshot of the document taken on the first read, which is kept until something changes
+	 * the document or it's this many milliseconds old
+	 */
+	@Qualifier
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({FIELD, PARAMETER, METHOD})
+	public @interface SnapshotReads {}
+	
+	/**
+	 * <p>
+	 * Qualifies a boolean binding that, if true, makes panels assign the values of their sets
+	 * in one go rather than typing them, unless a method says otherwise with
+	 * {@link jj.webdriver.Input}
+	 */
+	@Qualifier
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({FIELD, PARAMETER, METHOD})
+	public @interface AssignInputs {}
+	
+	private static final Map<Class<? extends Panel>, Class<? extends Panel>> implementations = new ConcurrentHashMap<>();
 	
 	private static final String INJECT_ANNOTATION = Inject.class.getCanonicalName();
 	
@@ -67,6 +134,27 @@ public class PanelFactory {
 	
 	private final Set<PanelMethodGenerator> generators;
 	
+	private Set<PageLoadListener> pageLoadListeners = Collections.emptySet();
+	
+	private Set<TraceListener> traceListeners = Collections.emptySet();
+	
+	private boolean reusePanels = false;
+	
+	// null unless commands are being batched
+	private CommandBatch batch = null;
+	
+	// null unless reads are being answered from snapshots
+	private DomSnapshot snapshot = null;
+	
+	private boolean assignInputs = false;
+	
+	private GenerationDiagnostics diagnostics = null;
+	
+	private final Map<Class<? extends Panel>, Instantiator> instantiators = new ConcurrentHashMap<>();
+	
+	// panels handed out since the last page was created, if reusing them
+	private final Map<PanelKey, Panel> panels = new ConcurrentHashMap<>();
+	
 	@Inject
 	PanelFactory(
 		final Injector injector,
@@ -79,9 +167,91 @@ public class PanelFactory {
 		this.generators = generators;
 	}
 	
+	// optional, so injectors that don't care about page loads need not bind the set
+	@com.google.inject.Inject(optional = true)
+	void pageLoadListeners(final Set<PageLoadListener> pageLoadListeners) {
+		this.pageLoadListeners = pageLoadListeners;
+	}
+	
+	@com.google.inject.Inject(optional = true)
+	void traceListeners(final Set<TraceListener> traceListeners) {
+		this.traceListeners = traceListeners;
+	}
+	
+	@com.google.inject.Inject(optional = true)
+	void reusePanels(final @ReusePanels boolean reusePanels) {
+		this.reusePanels = reusePanels;
+	}
+	
+	@com.google.inject.Inject(optional = true)
+	void batchCommands(final @BatchCommands boolean batchCommands) {
+		this.batch = batchCommands ? new CommandBatch() : null;
+	}
+	
+	@com.google.inject.Inject(optional = true)
+	void snapshotReads(final @SnapshotReads long ttlMillis) {
+		this.snapshot = ttlMillis > 0 ? new DomSnapshot(ttlMillis) : null;
+	}
+	
+	@com.google.inject.Inject(optional = true)
+	void assignInputs(final @AssignInputs boolean assignInputs) {
+		this.assignInputs = assignInputs;
+	}
+	
+	// only ever bound by instance, there's no constructor the injector could use on its own
+	@com.google.inject.Inject(optional = true)
+	void generationDiagnostics(final GenerationDiagnostics diagnostics) {
+		this.diagnostics = diagnostics;
+	}
+	
+	/**
+	 * Carries out any clicks and sets that have been batched. Does nothing if commands
+	 * aren't being batched
+	 * 
+	 * @throws AssertionError if a command can't be carried out, with the stack of the panel
+	 * method that made it
+	 */
+	public void flush() {
+		if (batch != null && !batch.isEmpty()) {
+			batch.flush(injector.getInstance(WebDriver.class));
+		}
+	}
+	
+	CommandBatch batch() {
+		return batch;
+	}
+	
+	DomSnapshot snapshot() {
+		return snapshot;
+	}
+	
+	boolean assignInputs() {
+		return assignInputs;
+	}
+	
+	/**
+	 * Throws away any snapshot of the document, since it has changed or might have. Panels
+	 * do this after anything they do to the page, so this is for anything else that changes
+	 * it. Does nothing if reads aren't being answered from snapshots
+	 */
+	public void changed() {
+		if (snapshot != null) {
+			snapshot.invalidate();
+		}
+	}
+	
+	Set<TraceListener> traceListeners() {
+		return traceListeners;
+	}
+	
 	/**
 	 * creates a page instance by type.  it is expected that the connected browser is already
 	 * on the configured URL, and this might even get asserted!
+	 * 
+	 * <p>
+	 * If the type is a {@link Page}, the configured {@link PageLoadListener}s are
+	 * notified first. If the type declares a {@link jj.webdriver.Ready} condition,
+	 * it is awaited before the instance is returned
 	 *
 	 * @param panelInterface
 	 * The interface Class object to use for generation
@@ -92,18 +262,95 @@ public class PanelFactory {
 	 * a live Panel
 	 */
 	public <T extends Panel> T create(final Class<T> panelInterface) {
+		return create(panelInterface, null);
+	}
+	
+	/**
+	 * creates a panel, or a page at the given URL if it is already known, sparing a trip
+	 * to the driver to ask for it
+	 */
+	<T extends Panel> T create(final Class<T> panelInterface, String url) {
+		return create(panelInterface, url, ByStack.root(), null);
+	}
+	
+	/**
+	 * creates a panel nested within another, placed in the given hierarchy and scope
+	 * before its readiness is awaited, so its condition is looked for within it
+	 */
+	<T extends Panel> T create(final Class<T> panelInterface, ByStack byStack, SearchContext scope) {
+		assert !Page.class.isAssignableFrom(panelInterface) : "pages aren't nested in anything";
+		return create(panelInterface, null, byStack, scope);
+	}
+	
+	private <T extends Panel> T create(final Class<T> panelInterface, String url, ByStack byStack, SearchContext scope) {
 		
 		assert panelInterface != null : "provide a panel interface";
+		
+		return TraceListener.trace(traceListeners, TraceListener.ACTION, panelInterface.getName(), "create", url, () -> make(panelInterface, url, byStack, scope));
+	}
+	
+	private <T extends Panel> T make(final Class<T> panelInterface, String url, ByStack byStack, SearchContext scope) {
+		
 		assert panelInterface.isInterface() : "panels are produced only from interfaces";
 		assert !Page.class.isAssignableFrom(panelInterface) || panelInterface.isAnnotationPresent(URL.class) :
 			"page interfaces must have URI annotations";
 		
+		boolean page = Page.class.isAssignableFrom(panelInterface);
+		
+		if (page) {
+			// anything left over was meant for the last page
+			flush();
+			
+			// a new page means the old panels are gone
+			panels.clear();
+			changed();
+			
+			if (!pageLoadListeners.isEmpty()) {
+				WebDriver webDriver = injector.getInstance(WebDriver.class);
+				for (PageLoadListener listener : pageLoadListeners) {
+					listener.pageLoaded(webDriver);
+				}
+			}
+		}
+		
 		try {
-			if (!implementations.containsKey(panelInterface)) {
-				implementations.put(panelInterface, define(panelInterface));
+			Class<? extends Panel> implementation = implementations.get(panelInterface);
+			if (implementation == null) {
+				// a class can only be defined once, no matter how many factories are running
+				synchronized (implementations) {
+					implementation = implementations.get(panelInterface);
+					if (implementation == null) {
+						implementation = TraceListener.trace(traceListeners, TraceListener.GENERATION, panelInterface.getName(), "define", null, () -> {
+							try {
+								return define(panelInterface);
+							} catch (Exception e) {
+								throw new AssertionError("could not generate " + panelInterface.getName(), e);
+							}
+						});
+						implementations.put(panelInterface, implementation);
+					}
+				}
+			}
+			assert implementation.getSuperclass().getName().equals(panelBase.getName()) :
+				panelInterface.getName() + " was already generated on " + implementation.getSuperclass().getName() +
+				", and can't also be generated on " + panelBase.getName() + " in the same JVM";
+			
+			Instantiator instantiator = instantiators.get(implementation);
+			if (instantiator == null) {
+				instantiator = new Instantiator(implementation);
+				instantiators.put(implementation, instantiator);
+			}
+			
+			PanelBase instance = instantiator.instantiate();
+			instance.byStack(byStack);
+			instance.scope(scope);
+			
+			if (page) {
+				instance.url = url == null ? instance.currentUrl() : url;
+				instance.logger.info("url is {}", instance.url);
 			}
 			
-			Panel instance = injector.getInstance(implementations.get(panelInterface));
+			instance.awaitReady();
 			
 			return panelInterface.cast(instance);
 			
@@ -112,25 +359,118 @@ public class PanelFactory {
 		}
 	}
 	
+	/**
+	 * produces a panel within the given hierarchy and scope, which is the same instance as the last
+	 * time if panels are being reused and there hasn't been a page created since
+	 */
+	<T extends Panel> T reuse(Class<T> panelInterface, ByStack byStack, SearchContext scope, Supplier<T> maker) {
+		if (!reusePanels) {
+			return maker.get();
+		}
+		
+		PanelKey key = new PanelKey(panelInterface, byStack, scope);
+		Panel result = panels.get(key);
+		if (result == null) {
+			result = maker.get();
+			panels.put(key, result);
+		}
+		return panelInterface.cast(result);
+	}
+	
+	/**
+	 * Constructs instances of a generated class directly, with the arguments the injector provides
+	 * for its constructor, instead of asking the injector to build each one
+	 */
+	private final class Instantiator {
+		
+		private final Constructor<? extends Panel> constructor;
+		private final Provider<?>[] arguments;
+		private final boolean injectMembers;
+		
+		Instantiator(Class<? extends Panel> implementation) {
+			@SuppressWarnings("unchecked")
+			Constructor<? extends Panel> constructor = (Constructor<? extends Panel>)implementation.getDeclaredConstructors()[0];
+			this.constructor = constructor;
+			Type[] types = constructor.getGenericParameterTypes();
+			arguments = new Provider<?>[types.length];
+			for (int i = 0; i < types.length; ++i) {
+				arguments[i] = injector.getProvider(Key.get(types[i]));
+			}
+			injectMembers = !InjectionPoint.forInstanceMethodsAndFields(implementation).isEmpty();
+		}
+		
+		PanelBase instantiate() throws Exception {
+			Object[] args = new Object[arguments.length];
+			for (int i = 0; i < args.length; ++i) {
+				args[i] = arguments[i].get();
+			}
+			PanelBase result = (PanelBase)constructor.newInstance(args);
+			if (injectMembers) {
+				injector.injectMembers(result);
+			}
+			return result;
+		}
+	}
+	
+	private static final class PanelKey {
+		
+		private final Class<?> panelInterface;
+		private final ByStack byStack;
+		private final SearchContext scope;
+		
+		PanelKey(Class<?> panelInterface, ByStack byStack, SearchContext scope) {
+			this.panelInterface = panelInterface;
+			this.byStack = byStack;
+			this.scope = scope;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof PanelKey &&
+				((PanelKey)o).panelInterface == panelInterface &&
+				Objects.equals(((PanelKey)o).byStack, byStack) &&
+				Objects.equals(((PanelKey)o).scope, scope);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(panelInterface, byStack, scope);
+		}
+	}
+	
 	private <T extends Panel> Class<T> define(Class<? super T> panelInterface) throws Exception {
 		
+		long start = System.nanoTime();
+		List<GenerationDiagnostics.MethodRecord> methods = diagnostics == null ? null : new ArrayList<>();
+		
 		CtClass ctClass = classPool.makeClass(makeClassName(panelInterface), panelBase);
 		CtClass panelCtClass = classPool.get(panelInterface.getName());
 		ctClass.addInterface(panelCtClass);
 		
+		Throwable failure = null;
 		try {
 			
 			prepareForInjection(ctClass);
 			
-			defineMethods(ctClass, panelCtClass);
+			defineMethods(ctClass, panelCtClass, methods);
 			
 			@SuppressWarnings("unchecked")
 			Class<T> result = (Class<T>)ctClass.toClass();
 			
 			return result;
 			
+		} catch (Exception | Error e) {
+			failure = e;
+			throw e;
 		} finally {
 			
+			// a failure is the most interesting thing to look at, so it gets recorded too
+			if (diagnostics != null) {
+				diagnostics.generated(new GenerationDiagnostics.InterfaceRecord(
+					panelInterface.getName(), panelBase.getName(), System.nanoTime() - start, methods, failure
+				));
+			}
+			
 			// not going to need this anymore
 			ctClass.detach();
 			// but we keep the page class around because it
@@ -157,7 +497,7 @@ public class PanelFactory {
 		ctor.getMethodInfo().addAttribute(attribute);
 	}
 	
-	private void defineMethods(CtClass ctClass, CtClass panelCtClass) throws Exception {
+	private void defineMethods(CtClass ctClass, CtClass panelCtClass, List<GenerationDiagnostics.MethodRecord> methods) throws Exception {
 		
 		for (CtMethod baseMethod : panelCtClass.getMethods()) {
 			CtClass declaringClass = baseMethod.getDeclaringClass();
@@ -166,36 +506,70 @@ public class PanelFactory {
 				declaringClass != pageInterface
 			) {
 			
-				CtMethod newMethod = 
-					new CtMethod(baseMethod.getReturnType(), baseMethod.getName(), baseMethod.getParameterTypes(), ctClass);
-				
-				PanelMethodGenerator generator = findGenerator(newMethod, baseMethod);
-				
-				try {
-				
-					generator.generateMethod(newMethod, baseMethod);
-				
-					ctClass.addMethod(newMethod);
-	
-				} catch (Exception e) {
-					throw new AssertionError(
-						"generator " + generator.getClass().getName() + 
-						" failed to generate " + newMethod.getDeclaringClass().getInterfaces()[0].getName() + "." + newMethod.getName(),
-						e
-					);
-				}
+				TraceListener.trace(traceListeners, TraceListener.GENERATION, panelCtClass.getName(), "generate", baseMethod.getName(), () -> {
+					try {
+						defineMethod(ctClass, baseMethod, methods);
+					} catch (Exception e) {
+						throw new AssertionError("could not generate " + panelCtClass.getName() + "." + baseMethod.getName(), e);
+					}
+					return null;
+				});
 			}
 		}
 	}
 	
-	private PanelMethodGenerator findGenerator(CtMethod newMethod, CtMethod baseMethod) throws Exception {
+	private void defineMethod(CtClass ctClass, CtMethod baseMethod, List<GenerationDiagnostics.MethodRecord> methods) throws Exception {
+		
+		long start = System.nanoTime();
 		
-		for (PanelMethodGenerator generator : generators) {
-			if (generator.matches(newMethod, baseMethod)) {
-				return generator;
+		CtMethod newMethod = 
+			new CtMethod(baseMethod.getReturnType(), baseMethod.getName(), baseMethod.getParameterTypes(), ctClass);
+		
+		int tried = 0;
+		PanelMethodGenerator generator = null;
+		for (PanelMethodGenerator candidate : generators) {
+			++tried;
+			if (candidate.matches(newMethod, baseMethod)) {
+				generator = candidate;
+				break;
 			}
 		}
 		
-		throw new AssertionError("no generator found for " + baseMethod.getDeclaringClass().getName() + "." + baseMethod.getName());
+		if (generator == null) {
+			throw new AssertionError("no generator found for " + baseMethod.getDeclaringClass().getName() + "." + baseMethod.getName());
+		}
+		
+		List<String> bodies = new ArrayList<>();
+		PanelMethodGenerator.recordedBodies.set(bodies);
+		try {
+		
+			generator.generateMethod(newMethod, baseMethod);
+		
+			ctClass.addMethod(newMethod);
+
+		} catch (Exception e) {
+			throw new AssertionError(
+				"generator " + generator.getClass().getName() + 
+				" failed to generate " + newMethod.getDeclaringClass().getInterfaces()[0].getName() + "." + newMethod.getName() +
+				(bodies.isEmpty() ? "" : " with body\n" + bodies.get(bodies.size() - 1)),
+				e
+			);
+		} finally {
+			PanelMethodGenerator.recordedBodies.remove();
+			
+			if (methods != null) {
+				methods.add(new GenerationDiagnostics.MethodRecord(
+					describe(baseMethod), generator.getClass().getName(), tried, System.nanoTime() - start, bodies
+				));
+			}
+		}
+	}
+	
+	/**
+	 * the method name and parameter types, which is the long name less the declaring class
+	 */
+	private String describe(CtMethod method) {
+		String longName = method.getLongName();
+		return longName.substring(longName.lastIndexOf('.', longName.indexOf('(')) + 1);
 	}
 }
@@ -15,11 +15,17 @@
  */
 package jj.webdriver.panel;
 
+import java.lang.annotation.Annotation;
 import java.util.Arrays;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import javassist.CtClass;
 import javassist.CtMethod;
+import javassist.bytecode.SignatureAttribute;
+import javassist.bytecode.SignatureAttribute.ClassType;
+import javassist.bytecode.SignatureAttribute.Type;
+import javassist.bytecode.SignatureAttribute.TypeArgument;
 import jj.webdriver.By;
 import jj.webdriver.Page;
 import jj.webdriver.Panel;
@@ -38,6 +44,14 @@ public abstract class PanelMethodGenerator {
 	 * The default name for the local variable for the rendered {@link org.openqa.selenium.By}
 	 */
 	protected static final String LOCAL_BY = "localBy";
+	
+	/**
+	 * Where {@link #setBody(CtMethod, StringBuilder)} records bodies while the factory is
+	 * generating a method, for diagnostics and for reporting bodies that don't compile.
+	 * Generation happens one method at a time under a lock, so the thread is enough to
+	 * tell whose method it is
+	 */
+	static final ThreadLocal<List<String>> recordedBodies = new ThreadLocal<>();
 
 	/**
 	 * Convenience to compile a {@link Pattern} for a method name that matches
@@ -50,6 +64,25 @@ public abstract class PanelMethodGenerator {
 	protected static final Pattern makeNamePattern(String name) {
 		return Pattern.compile("^" + name + "[\\p{javaUpperCase}\\d_\\$]");
 	}
+	
+	/**
+	 * Convenience to look up the declared default of an annotation attribute, so generators
+	 * that handle a missing annotation don't need to keep their own copy of it
+	 *
+	 * @param annotation the annotation type
+	 * @param attribute the name of the attribute
+	 *
+	 * @return the default value
+	 */
+	protected static final Object annotationDefault(Class<? extends Annotation> annotation, String attribute) {
+		try {
+			Object result = annotation.getMethod(attribute).getDefaultValue();
+			assert result != null : annotation.getName() + "." + attribute + " has no default";
+			return result;
+		} catch (NoSuchMethodException nsme) {
+			throw new AssertionError(annotation.getName() + " has no attribute " + attribute, nsme);
+		}
+	}
 
 	/**
 	 * determine if the given method can be generated. immediately thereafter,
@@ -196,6 +229,45 @@ public abstract class PanelMethodGenerator {
 		return type.isInterface() && hasInterface(type, PAGE_CLASS_NAME);
 	}
 	
+	/**
+	 * <p>
+	 * Determines if the given method returns the named generic type with a single type
+	 * argument, for instance <code>java.util.List</code>, and if so, returns the type argument.
+	 * 
+	 * <p>
+	 * Generic information is only available from the declaration, so this must be given
+	 * the method from the configuration interface.
+	 *
+	 * @param baseMethod
+	 * the method declaration from the configuration interface
+	 * @param genericType
+	 * the fully qualified name of the generic return type
+	 *
+	 * @return the type argument, or null if the method does not return the given type with a
+	 * single concrete type argument
+	 *
+	 * @throws Exception if anything goes wrong
+	 */
+	protected final CtClass returnTypeArgument(CtMethod baseMethod, String genericType) throws Exception {
+		
+		String signature = baseMethod.getGenericSignature();
+		if (signature == null) {
+			return null;
+		}
+		
+		Type returnType = SignatureAttribute.toMethodSignature(signature).getReturnType();
+		if (!(returnType instanceof ClassType) || !genericType.equals(((ClassType)returnType).getName())) {
+			return null;
+		}
+		
+		TypeArgument[] arguments = ((ClassType)returnType).getTypeArguments();
+		if (arguments == null || arguments.length != 1 || !(arguments[0].getType() instanceof ClassType)) {
+			return null;
+		}
+		
+		return baseMethod.getDeclaringClass().getClassPool().get(((ClassType)arguments[0].getType()).getName());
+	}
+	
 	/**
 	 * <p>
 	 * in {@link #generateMethod(CtMethod, CtMethod)}, determines the slice index for
@@ -211,7 +283,9 @@ public abstract class PanelMethodGenerator {
 	/**
 	 * <p>
 	 * Sets the body of the method with the contents of the supplied StringBuffer.  Call
-	 * this instead of doing that directly because this will debug log at some point
+	 * this instead of doing that directly so the body shows up in the
+	 * {@link GenerationDiagnostics}, if there are any, and in the error if it
+	 * doesn't compile
 	 *
 	 * @param newMethod
 	 * the method implementation being generated
@@ -221,8 +295,12 @@ public abstract class PanelMethodGenerator {
 	 * @throws Exception if anything goes wrong
 	 */
 	protected void setBody(CtMethod newMethod, StringBuilder sb) throws Exception {
-		// log it! but don't have the right loggers yet
-		newMethod.setBody(sb.toString());
+		String body = sb.toString();
+		List<String> recording = recordedBodies.get();
+		if (recording != null) {
+			recording.add(body);
+		}
+		newMethod.setBody(body);
 	}
 	
 	/**
@@ -257,10 +335,11 @@ public abstract class PanelMethodGenerator {
 		
 		if (newClass.getInterfaces()[0] == returnType) {
 			sb.append("return this;");
-		} else if (isPanel(returnType)) {
-			sb.append("return makePanel(").append(returnType.getName()).append(".class);");
 		} else if (isPage(returnType)) {
+			// pages are panels too, so this has to be checked first
 			sb.append("return navigateTo(").append(returnType.getName()).append(".class);");
+		} else if (isPanel(returnType)) {
+			sb.append("return makePanel(").append(returnType.getName()).append(".class);");
 		}
 	}
 	
@@ -281,10 +360,14 @@ public abstract class PanelMethodGenerator {
 	 * the named local variable.  This involves the following steps:
 	 * 
 	 * <ol>
-	 * <li>slice the method arguments at the index provided by sliceArgs, using {@link Arrays#copyOfRange(Object[], int, int)}
+	 * <li>if the value has format flags, slice the method arguments at the index provided by sliceArgs, using
+	 *     {@link Arrays#copyOfRange(Object[], int, int)}
 	 * <li>create a {@link org.openqa.selenium.By} using the appropriate type according to {@link ByReader}.
 	 *     if needed, this includes using {@link String#format(String, Object...)} on the annotated value,
-	 *     and resolving the {@link ByStack}.
+	 *     and resolving the {@link ByStack}. constant values resolved against the stack are
+	 *     cached by it.
+	 * <li>if the annotation specifies a timeout or poll interval, wrap the result to carry them to
+	 *     the {@link jj.webdriver.WebElementFinder}
 	 * </ol>
 	 *
 	 * @param by the annotation being processed
@@ -297,33 +380,46 @@ public abstract class PanelMethodGenerator {
 		if (by != null) {
 			ByReader br = new ByReader(by);
 			
-			// args might get sliced for an implementation
-			if (sliceArgs > -1) {
-				sb.append("Object[] slicedArgs = java.util.Arrays.copyOfRange($args, ").append(sliceArgs).append(", $args.length);");
-			}
-			
-			sb.append("org.openqa.selenium.By ").append(varName).append(" = org.openqa.selenium.By.");
-			sb.append(br.type()).append("(");
-
-			if (br.needsResolution()) {
-				sb.append("byStack.resolve(");
-			}
+			// without format flags, formatting would only reproduce the value
+			boolean format = sliceArgs > -1 && br.value().indexOf('%') != -1;
 			
-			if (sliceArgs > -1) {
-				sb.append("String.format(");
-			}
-			
-			sb.append("\"").append(br.value()).append("\"");
-			
-			if (sliceArgs > -1) {
-				sb.append(", slicedArgs)");
+			if (br.needsResolution() && !format) {
+				// constant IDs come straight from the stack's cache
+				sb.append("org.openqa.selenium.By ").append(varName).append(" = byStack.id(\"").append(br.value()).append("\");");
+			} else {
+				// args might get sliced for an implementation
+				if (format) {
+					sb.append("Object[] slicedArgs = java.util.Arrays.copyOfRange($args, ").append(sliceArgs).append(", $args.length);");
+				}
+				
+				sb.append("org.openqa.selenium.By ").append(varName).append(" = org.openqa.selenium.By.");
+				sb.append(br.type()).append("(");
+	
+				if (br.needsResolution()) {
+					sb.append("byStack.resolve(");
+				}
+				
+				if (format) {
+					sb.append("String.format(");
+				}
+				
+				sb.append("\"").append(br.value()).append("\"");
+				
+				if (format) {
+					sb.append(", slicedArgs)");
+				}
+				
+				if (br.needsResolution()) {
+					sb.append(")");
+				}
+				
+				sb.append(");");
 			}
 			
-			if (br.needsResolution()) {
-				sb.append(")");
+			if (br.hasTiming()) {
+				sb.append(varName).append(" = new ").append(TimedBy.class.getName()).append("(").append(varName).append(", ")
+					.append(br.timeout()).append("L, ").append(br.poll()).append("L);");
 			}
-			
-			sb.append(");");
 		}
 	}
 	
@@ -0,0 +1,145 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import java.util.List;
+
+import jj.webdriver.Ready;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * <p>
+ * Waits for a {@link Ready} condition to hold.
+ * 
+ * @author jason
+ *
+ */
+class ReadinessGate {
+	
+	private static final long POLL_MILLIS = 50;
+	
+	// how long the network must be quiet to count as idle
+	private static final long QUIET_MILLIS = 500;
+	
+	static By by(jj.webdriver.By by, ByStack byStack) {
+		ByReader br = new ByReader(by);
+		String value = br.needsResolution() ? byStack.resolve(br.value()) : br.value();
+		switch (br.type()) {
+		case "className":
+			return By.className(value);
+		case "cssSelector":
+			return By.cssSelector(value);
+		case "xpath":
+			return By.xpath(value);
+		default:
+			return By.id(value);
+		}
+	}
+	
+	private final WebDriver webDriver;
+	private final Ready ready;
+	private final By selector;
+	
+	private long lastResources = -1;
+	private long quietSince;
+	
+	/**
+	 * @param selector the resolved and scoped form of the condition's selector, or null if it has none
+	 */
+	ReadinessGate(final WebDriver webDriver, final Ready ready, final By selector) {
+		assert !ready.networkIdle() || webDriver instanceof JavascriptExecutor : "network idle readiness requires a driver that executes javascript";
+		assert ready.script().isEmpty() || webDriver instanceof JavascriptExecutor : "script readiness requires a driver that executes javascript";
+		this.webDriver = webDriver;
+		this.ready = ready;
+		this.selector = selector;
+	}
+	
+	/**
+	 * @return how long it took, in milliseconds
+	 */
+	long await(String name) {
+		long start = System.currentTimeMillis();
+		quietSince = start;
+		while (!(selectorReady() && scriptReady() && networkReady())) {
+			if (System.currentTimeMillis() - start >= ready.timeout()) {
+				throw new AssertionError("timed out after " + ready.timeout() + "ms waiting for " + name + " to be " + describe());
+			}
+			try {
+				Thread.sleep(POLL_MILLIS);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new AssertionError("interrupted while waiting for " + name + " to be ready", ie);
+			}
+		}
+		return System.currentTimeMillis() - start;
+	}
+	
+	private boolean selectorReady() {
+		if (selector == null) {
+			return true;
+		}
+		try {
+			List<WebElement> elements = webDriver.findElements(selector);
+			return !elements.isEmpty() && elements.get(0).isDisplayed();
+		} catch (StaleElementReferenceException sere) {
+			return false;
+		}
+	}
+	
+	private boolean scriptReady() {
+		if (ready.script().isEmpty()) {
+			return true;
+		}
+		Object result = ((JavascriptExecutor)webDriver).executeScript("return !!(" + ready.script() + ");");
+		return Boolean.TRUE.equals(result);
+	}
+	
+	private boolean networkReady() {
+		if (!ready.networkIdle()) {
+			return true;
+		}
+		List<?> result = (List<?>)ScriptLibrary.call(webDriver, ScriptLibrary.NETWORK);
+		long pending = ((Number)result.get(0)).longValue();
+		long resources = ((Number)result.get(1)).longValue();
+		long now = System.currentTimeMillis();
+		if (pending > 0 || resources != lastResources) {
+			lastResources = resources;
+			quietSince = now;
+			return false;
+		}
+		return now - quietSince >= QUIET_MILLIS;
+	}
+	
+	private String describe() {
+		StringBuilder sb = new StringBuilder("ready (");
+		if (selector != null) {
+			sb.append("displayed ").append(selector).append(", ");
+		}
+		if (!ready.script().isEmpty()) {
+			sb.append("script ").append(ready.script()).append(", ");
+		}
+		if (ready.networkIdle()) {
+			sb.append("network idle, ");
+		}
+		sb.setLength(sb.length() - 2);
+		return sb.append(")").toString();
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+
+/**
+ * <p>
+ * A locator that searches relative to a fixed scope, regardless of the
+ * context it is handed.  Wrapping a locator this way lets a panel rooted
+ * at an element use any {@link jj.webdriver.WebElementFinder} unchanged,
+ * since the finder just hands it the driver.
+ * 
+ * @author jason
+ *
+ */
+final class ScopedBy extends By {
+	
+	private final SearchContext scope;
+	private final By by;
+	
+	ScopedBy(final SearchContext scope, final By by) {
+		this.scope = scope;
+		this.by = by;
+	}
+	
+	@Override
+	public List<WebElement> findElements(SearchContext context) {
+		return scope.findElements(by);
+	}
+	
+	@Override
+	public WebElement findElement(SearchContext context) {
+		return scope.findElement(by);
+	}
+	
+	By unscoped() {
+		return by;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof ScopedBy && ((ScopedBy)o).scope.equals(scope) && ((ScopedBy)o).by.equals(by);
+	}
+	
+	@Override
+	public int hashCode() {
+		return scope.hashCode() * 31 + by.hashCode();
+	}
+	
+	@Override
+	public String toString() {
+		return by + " within " + scope;
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * <p>
+ * The helper functions used by the scripted fast paths, installed into each document
+ * the first time one is needed, and called by name from then on, so that the
+ * function bodies only cross the wire once per page.  Every script the panels run
+ * lives here, apart from the readiness conditions pages declare for themselves, and
+ * the functions share a few helpers, so reading text or attributes and entering
+ * values work the same way wherever they happen.
+ * 
+ * <p>
+ * The library is versioned by its contents.  Calls check for the right version, and
+ * when it's missing, because the browser navigated or the library changed, the library
+ * is installed and the call made in the same script execution.
+ * 
+ * @author jason
+ *
+ */
+final class ScriptLibrary {
+	
+	static final String READ_ALL = "readAll";
+	static final String ASSIGN = "assign";
+	static final String ATTRIBUTES = "attributes";
+	static final String BATCH = "batch";
+	static final String SNAPSHOT = "snapshot";
+	static final String LOCATION = "location";
+	static final String NETWORK = "network";
+	static final String SCROLL_INTO_VIEW = "scrollIntoView";
+	
+	// what a call returns when the library isn't installed
+	private static final String MISSING = "pandia:missing";
+	
+	// declared once in the library, for any of the functions to use
+	private static final String HELPERS =
+		// the text of an element, the way PanelBase reads it. the driver collapses whitespace
+		// within lines and trims them, and reads non-breaking spaces as spaces. browsers
+		// without innerText give null, so the driver reads the element instead
+		"function text(e) {" +
+			"if (e.tagName.toLowerCase() == 'input') { return e.value; }" +
+			"if (typeof e.innerText != 'string') { return null; }" +
+			"return e.innerText" +
+				".replace(/[^\\S\\n\\xa0]+/g, ' ')" +
+				".replace(/ *\\n[ \\n]*/g, '\\n')" +
+				".replace(/^[ \\n]+|[ \\n]+$/g, '')" +
+				".replace(/\\xa0/g, ' ');" +
+		"}" +
+		// an attribute, the way WebElement.getAttribute reads it, property first
+		"function attribute(e, n) {" +
+			"var p = e[n];" +
+			"if (n == 'class' || n == 'style') { return n == 'style' ? e.style.cssText : e.getAttribute(n); }" +
+			"if (typeof p == 'boolean') { return p ? 'true' : null; }" +
+			"if (p != null && (typeof p == 'string' || typeof p == 'number')) { return String(p); }" +
+			"return e.getAttribute(n);" +
+		"}" +
+		// appends to the value of an element, firing the events frameworks listen for. uses
+		// the native setter, since some frameworks intercept the value property
+		"function enter(e, v) {" +
+			"var d = Object.getOwnPropertyDescriptor(Object.getPrototypeOf(e), 'value');" +
+			"v = e.value + v;" +
+			"e.focus();" +
+			"if (d && d.set) { d.set.call(e, v); } else { e.value = v; }" +
+			"e.dispatchEvent(new Event('input', {bubbles: true}));" +
+			"e.dispatchEvent(new Event('change', {bubbles: true}));" +
+		"}" +
+		// true only when the driver would certainly agree that the element is displayed -
+		// visible, opaque, with a size, and not clipped by anything around it
+		"function displayed(e) {" +
+			"if (e.tagName.toLowerCase() == 'input' && e.type == 'hidden') { return false; }" +
+			"if (window.getComputedStyle(e).visibility != 'visible') { return false; }" +
+			"var b = e.getBoundingClientRect();" +
+			"if (!(b.width > 0 && b.height > 0)) { return false; }" +
+			"for (var p = e; p && p.nodeType == 1; p = p.parentNode) {" +
+				"var s = window.getComputedStyle(p);" +
+				"if (s.display == 'none' || parseFloat(s.opacity) == 0) { return false; }" +
+				"if (p != e && s.overflow != 'visible') {" +
+					"var c = p.getBoundingClientRect();" +
+					"if (b.left < c.left || b.top < c.top || b.right > c.right || b.bottom > c.bottom) { return false; }" +
+				"}" +
+			"}" +
+			"return true;" +
+		"}";
+	
+	private static final Map<String, String> FUNCTIONS;
+	
+	static {
+		Map<String, String> functions = new LinkedHashMap<>();
+		
+		// reads the text of a list of elements, in one round trip
+		functions.put(READ_ALL,
+			"var r = [];" +
+			"for (var i = 0; i < arguments[0].length; i++) { r.push(text(arguments[0][i])); }" +
+			"return r;"
+		);
+		
+		// enters a value into an element
+		functions.put(ASSIGN,
+			"enter(arguments[0], arguments[1]);"
+		);
+		
+		// reads the named attributes of an element, in one round trip
+		functions.put(ATTRIBUTES,
+			"var e = arguments[0], r = {};" +
+			"for (var i = 0; i < arguments[1].length; i++) { r[arguments[1][i]] = attribute(e, arguments[1][i]); }" +
+			"return r;"
+		);
+		
+		// arguments[0] is a list of [click|assign|type, value, element, how, what, scope] for each
+		// command. returns [done] if everything was done, or [index, problem, detail] for the first
+		// command that couldn't be, after doing everything before it. a command to type is handed
+		// back as [index, 'type', element], since only the driver can type
+		functions.put(BATCH,
+			"var cs = arguments[0];" +
+			"for (var i = 0; i < cs.length; i++) {" +
+				"var c = cs[i], e = c[2];" +
+				"if (!e) {" +
+					"var root = c[5] || document;" +
+					"if (c[3] == 'css') { e = root.querySelector(c[4]); }" +
+					"else if (c[3] == 'xpath') { e = document.evaluate(c[4], root, null, 9, null).singleNodeValue; }" +
+					"if (!e || !(e.offsetWidth || e.offsetHeight || e.getClientRects().length)) { return [i, 'missing']; }" +
+				"}" +
+				"try {" +
+					"if (c[0] == 'click') { e.click(); }" +
+					"else if (c[0] == 'assign') { enter(e, c[1]); }" +
+					"else { return [i, 'type', e]; }" +
+				"} catch (x) { return [i, 'error', String(x)]; }" +
+			"}" +
+			"return [cs.length];"
+		);
+		
+		// returns {id: [tag, text, displayed, {attributes}]} for the first element with each id.
+		// attributes are copied for the element's own attributes and a few common properties
+		functions.put(SNAPSHOT,
+			"var r = {}, es = document.querySelectorAll('[id]');" +
+			"var properties = ['value', 'checked', 'selected', 'disabled', 'href', 'src'];" +
+			"for (var i = 0; i < es.length; i++) {" +
+				"var e = es[i], a = {};" +
+				"if (r.hasOwnProperty(e.id)) { continue; }" +
+				"for (var j = 0; j < e.attributes.length; j++) { a[e.attributes[j].name] = attribute(e, e.attributes[j].name); }" +
+				"for (var j = 0; j < properties.length; j++) { if (properties[j] in e) { a[properties[j]] = attribute(e, properties[j]); } }" +
+				"r[e.id] = [e.tagName.toLowerCase(), text(e), displayed(e), a];" +
+			"}" +
+			"return r;"
+		);
+		
+		// where the document is, and how far it has loaded
+		functions.put(LOCATION,
+			"return [window.location.href, document.readyState];"
+		);
+		
+		// counts outstanding requests, and reports that count and the number of resources loaded.
+		// requests started before the first check can't be counted, the resource count covers those
+		functions.put(NETWORK,
+			"var w = window;" +
+			"if (!w.__pandiaNetwork) {" +
+				"var n = w.__pandiaNetwork = { pending: 0 };" +
+				"var done = function() { n.pending = Math.max(0, n.pending - 1); };" +
+				"if (w.XMLHttpRequest) {" +
+					"var send = w.XMLHttpRequest.prototype.send;" +
+					"w.XMLHttpRequest.prototype.send = function() {" +
+						"n.pending++;" +
+						"this.addEventListener('loadend', done);" +
+						"return send.apply(this, arguments);" +
+					"};" +
+				"}" +
+				"if (w.fetch) {" +
+					"var fetch = w.fetch;" +
+					"w.fetch = function() {" +
+						"n.pending++;" +
+						"var p = fetch.apply(this, arguments);" +
+						"p.then(done, done);" +
+						"return p;" +
+					"};" +
+				"}" +
+			"}" +
+			"var resources = w.performance && w.performance.getEntriesByType ? w.performance.getEntriesByType('resource').length : 0;" +
+			"return [w.__pandiaNetwork.pending, resources];"
+		);
+		
+		// brings an element to the bottom of the view, so pages that load more as they scroll do
+		functions.put(SCROLL_INTO_VIEW,
+			"arguments[0].scrollIntoView(false);"
+		);
+		
+		FUNCTIONS = Collections.unmodifiableMap(functions);
+	}
+	
+	static final String VERSION = Integer.toHexString((HELPERS + FUNCTIONS).hashCode());
+	
+	static final String SOURCE;
+	
+	private static final Map<String, String> CALLS;
+	
+	static {
+		StringBuilder source = new StringBuilder("window.__pandia = (function() {").append(HELPERS).append("return {v: '").append(VERSION).append("', fn: {");
+		Map<String, String> calls = new LinkedHashMap<>();
+		for (Map.Entry<String, String> function : FUNCTIONS.entrySet()) {
+			source.append(function.getKey()).append(": function() {").append(function.getValue()).append("},");
+			calls.put(function.getKey(),
+				"var p = window.__pandia;" +
+				"return p && p.v === '" + VERSION + "' ? p.fn." + function.getKey() + ".apply(null, arguments) : '" + MISSING + "';"
+			);
+		}
+		SOURCE = source.append("}};})();").toString();
+		CALLS = Collections.unmodifiableMap(calls);
+	}
+	
+	/**
+	 * Calls a function of the library, installing it first if need be
+	 * 
+	 * @param webDriver a driver that can execute scripts
+	 * @param function the name of the function
+	 * @param args the arguments, as for {@link JavascriptExecutor#executeScript(String, Object...)}
+	 * @return the result, as for {@link JavascriptExecutor#executeScript(String, Object...)}
+	 */
+	static Object call(WebDriver webDriver, String function, Object...args) {
+		assert webDriver instanceof JavascriptExecutor : "scripts need a JavascriptExecutor";
+		String call = CALLS.get(function);
+		assert call != null : "there is no library function named " + function;
+		
+		JavascriptExecutor executor = (JavascriptExecutor)webDriver;
+		Object result = executor.executeScript(call, args);
+		if (MISSING.equals(result)) {
+			result = executor.executeScript(SOURCE + call, args);
+		}
+		return result;
+	}
+	
+	private ScriptLibrary() {}
+}
@@ -0,0 +1,81 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+
+/**
+ * <p>
+ * A locator carrying the waiting budget from its {@link jj.webdriver.By}
+ * annotation through to the {@link jj.webdriver.WebElementFinder}. Searching
+ * with it is the same as searching with the locator it wraps.
+ * 
+ * @author jason
+ *
+ */
+final class TimedBy extends By {
+	
+	private final By by;
+	private final long timeout;
+	private final long poll;
+	
+	TimedBy(final By by, final long timeout, final long poll) {
+		this.by = by;
+		this.timeout = timeout;
+		this.poll = poll;
+	}
+	
+	@Override
+	public List<WebElement> findElements(SearchContext context) {
+		return by.findElements(context);
+	}
+	
+	@Override
+	public WebElement findElement(SearchContext context) {
+		return by.findElement(context);
+	}
+	
+	By untimed() {
+		return by;
+	}
+	
+	long timeout() {
+		return timeout;
+	}
+	
+	long poll() {
+		return poll;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof TimedBy && ((TimedBy)o).by.equals(by) && ((TimedBy)o).timeout == timeout && ((TimedBy)o).poll == poll;
+	}
+	
+	@Override
+	public int hashCode() {
+		return (by.hashCode() * 31 + Long.hashCode(timeout)) * 31 + Long.hashCode(poll);
+	}
+	
+	@Override
+	public String toString() {
+		return by.toString();
+	}
+}
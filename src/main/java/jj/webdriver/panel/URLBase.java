@@ -20,11 +20,16 @@ import static java.lang.annotation.ElementType.PARAMETER;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 import javax.inject.Qualifier;
 import javax.inject.Singleton;
 
+import jj.webdriver.Page;
+
 /**
  * Represents and calculates actual navigation URLs.
  * it's actually just a string appender! but it's
@@ -43,6 +48,8 @@ public class URLBase {
 
 	private final String urlBase;
 	
+	private final ConcurrentMap<Class<? extends Page>, Pattern> patterns = new ConcurrentHashMap<>();
+	
 	@Inject
 	URLBase(final @BaseURL String urlBase) {
 		this.urlBase = urlBase;
@@ -51,4 +58,16 @@ public class URLBase {
 	String resolve(String input) {
 		return urlBase + input;
 	}
+	
+	/**
+	 * @return a pattern matching any URL the given page can have
+	 */
+	Pattern pattern(Class<? extends Page> pageInterface) {
+		Pattern result = patterns.get(pageInterface);
+		if (result == null) {
+			result = URLTemplate.of(pageInterface).pattern(urlBase);
+			patterns.putIfAbsent(pageInterface, result);
+		}
+		return result;
+	}
 }
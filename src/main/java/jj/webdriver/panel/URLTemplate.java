@@ -0,0 +1,257 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.IllegalFormatConversionException;
+import java.util.List;
+import java.util.MissingFormatArgumentException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jj.webdriver.Page;
+import jj.webdriver.QueryParams;
+import jj.webdriver.URL;
+
+/**
+ * <p>
+ * The compiled form of the {@link URL} annotation of a {@link Page} interface.
+ * The value is parsed once per interface into literal segments and conversions,
+ * so expanding it is a single pass appending into one buffer rather than a
+ * {@link String#format(String, Object...)} call.
+ *
+ * <p>
+ * Only the plain {@code %s}, {@code %d}, {@code %%} and {@code %n} conversions
+ * are compiled.  Anything fancier (flags, widths, argument indexes) falls back
+ * to {@link String#format(String, Object...)}, with the same results as before.
+ *
+ * @author jason
+ *
+ */
+public final class URLTemplate {
+
+	private static final ConcurrentMap<Class<?>, URLTemplate> templates = new ConcurrentHashMap<>();
+
+	/**
+	 * @param pageInterface the page interface, which must be annotated with {@link URL}
+	 * @return the compiled template for the interface
+	 */
+	public static URLTemplate of(Class<? extends Page> pageInterface) {
+		URLTemplate result = templates.get(pageInterface);
+		if (result == null) {
+			URL url = pageInterface.getAnnotation(URL.class);
+			assert url != null : "page declarations must have a URL annotation";
+			result = compile(url.value());
+			templates.putIfAbsent(pageInterface, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @param value a format string as described in {@link URL}
+	 * @return the compiled template
+	 */
+	public static URLTemplate compile(String value) {
+		List<String> literals = new ArrayList<>();
+		StringBuilder conversions = new StringBuilder();
+		StringBuilder literal = new StringBuilder();
+
+		for (int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+			if (c != '%') {
+				literal.append(c);
+			} else if (i + 1 == value.length()) {
+				return new URLTemplate(value, null, null); // let the formatter complain
+			} else {
+				char conversion = value.charAt(++i);
+				switch (conversion) {
+				case '%':
+					literal.append('%');
+					break;
+				case 'n':
+					literal.append(System.lineSeparator());
+					break;
+				case 's':
+				case 'd':
+					literals.add(literal.toString());
+					literal.setLength(0);
+					conversions.append(conversion);
+					break;
+				default:
+					return new URLTemplate(value, null, null);
+				}
+			}
+		}
+		literals.add(literal.toString());
+
+		return new URLTemplate(value, literals.toArray(new String[literals.size()]), conversions.toString().toCharArray());
+	}
+
+	/**
+	 * @param queryArg an argument to {@link #expand(String, Object...)}
+	 * @return true if the argument can be used in the expansion
+	 */
+	public static boolean accepts(Object queryArg) {
+		return queryArg instanceof String || queryArg instanceof Number || queryArg instanceof QueryParams;
+	}
+
+	private static String encode(String input) {
+		try {
+			return URLEncoder.encode(input, "UTF-8");
+		} catch (UnsupportedEncodingException uee) {
+			throw new AssertionError(uee); // cant happen
+		}
+	}
+
+	// anything the formatter might expand, for templates that didn't compile
+	private static final Pattern FORMAT_SPECIFIER = Pattern.compile("%(\\d+\\$)?[-#+ 0,(<]*\\d*(\\.\\d+)?([a-zA-Z%])");
+
+	// what a conversion can expand to in a path
+	private static final String CONVERSION_PATTERN = "[^/?#]*";
+
+	private static boolean integral(Object arg) {
+		return arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte || arg instanceof BigInteger;
+	}
+
+	private final String value;
+
+	// both null if the template could not be compiled
+	private final String[] literals;
+	private final char[] conversions;
+
+	private final int estimatedLength;
+
+	private URLTemplate(String value, String[] literals, char[] conversions) {
+		this.value = value;
+		this.literals = literals;
+		this.conversions = conversions;
+		this.estimatedLength = value.length() + 16;
+	}
+
+	/**
+	 * <p>
+	 * Expands the template, appending it to the given base URL.
+	 *
+	 * <p>
+	 * String and Number arguments are used in order to satisfy the conversions in the
+	 * template, with Strings URL encoded.  QueryParams arguments are combined and
+	 * rendered as the query string.  Any other arguments are ignored, see
+	 * {@link #accepts(Object)}.
+	 *
+	 * @param base the base URL
+	 * @param args the arguments
+	 * @return the expanded URL
+	 */
+	public String expand(String base, Object...args) {
+
+		if (args == null) {
+			args = new Object[0];
+		}
+
+		QueryParams queryParams = null;
+		for (Object arg : args) {
+			if (arg instanceof QueryParams) {
+				queryParams = queryParams == null ? (QueryParams)arg : queryParams.and((QueryParams)arg);
+			}
+		}
+
+		StringBuilder sb = new StringBuilder(base.length() + estimatedLength).append(base);
+
+		if (literals == null) {
+			sb.append(String.format(value, formatArgs(args)));
+		} else {
+			int next = 0;
+			sb.append(literals[0]);
+			for (int i = 0; i < conversions.length; ++i) {
+				while (next < args.length && !(args[next] instanceof String || args[next] instanceof Number)) {
+					++next;
+				}
+				if (next == args.length) {
+					throw new MissingFormatArgumentException("%" + conversions[i]);
+				}
+				Object arg = args[next++];
+				if (arg instanceof String) {
+					if (conversions[i] == 'd') {
+						throw new IllegalFormatConversionException('d', String.class);
+					}
+					sb.append(encode((String)arg));
+				} else {
+					if (conversions[i] == 'd' && !integral(arg)) {
+						throw new IllegalFormatConversionException('d', arg.getClass());
+					}
+					sb.append(arg);
+				}
+				sb.append(literals[i + 1]);
+			}
+		}
+
+		if (queryParams != null && !queryParams.isEmpty()) {
+			sb.append(sb.indexOf("?") == -1 ? '?' : '&').append(queryParams);
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * <p>
+	 * Produces a pattern that matches any expansion of this template onto the given base
+	 * URL, with any query string or fragment, and with or without a trailing slash.
+	 * 
+	 * @param base the base URL
+	 * @return the pattern
+	 */
+	public Pattern pattern(String base) {
+		StringBuilder sb = new StringBuilder(Pattern.quote(base));
+		if (literals == null) {
+			Matcher matcher = FORMAT_SPECIFIER.matcher(value);
+			int last = 0;
+			while (matcher.find()) {
+				sb.append(Pattern.quote(value.substring(last, matcher.start())));
+				sb.append("%".equals(matcher.group(3)) ? "%" : CONVERSION_PATTERN);
+				last = matcher.end();
+			}
+			sb.append(Pattern.quote(value.substring(last)));
+		} else {
+			sb.append(Pattern.quote(literals[0]));
+			for (int i = 0; i < conversions.length; ++i) {
+				sb.append(CONVERSION_PATTERN).append(Pattern.quote(literals[i + 1]));
+			}
+		}
+		return Pattern.compile(sb.append("/?(?:[?#].*)?").toString());
+	}
+
+	private Object[] formatArgs(Object[] args) {
+		List<Object> formatArgs = new ArrayList<>(args.length);
+		for (Object arg : args) {
+			if (arg instanceof String) {
+				formatArgs.add(encode((String)arg));
+			} else if (arg instanceof Number) {
+				formatArgs.add(arg);
+			}
+		}
+		return formatArgs.toArray();
+	}
+
+	@Override
+	public String toString() {
+		return value;
+	}
+}
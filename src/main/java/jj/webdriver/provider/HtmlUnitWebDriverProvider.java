@@ -0,0 +1,80 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.provider;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import jj.webdriver.WebDriverProvider;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+/**
+ * <p>
+ * Provides an {@link HtmlUnitDriver} with JavaScript turned off, which parses and
+ * queries pages inside the JVM instead of starting a browser.  Lookups by id, name,
+ * class, tag, CSS and XPath work, as do clicking links and submitting forms, and typing
+ * into inputs.  Nothing on the page runs, so this is for checking page objects
+ * against static or server-rendered HTML, where it's a great deal faster than a browser.
+ * 
+ * <p>
+ * The driver is handed out without the {@link JavascriptExecutor} interface, since it
+ * can't execute anything, so the panels take their script-free paths.
+ * 
+ * @author jason
+ *
+ */
+public class HtmlUnitWebDriverProvider implements WebDriverProvider {
+
+	@Override
+	public WebDriver get() {
+		final HtmlUnitDriver webDriver = new HtmlUnitDriver(false);
+		
+		List<Class<?>> interfaces = new ArrayList<>();
+		for (Class<?> type : HtmlUnitDriver.class.getInterfaces()) {
+			if (type != JavascriptExecutor.class) {
+				interfaces.add(type);
+			}
+		}
+		
+		return (WebDriver)Proxy.newProxyInstance(
+			HtmlUnitWebDriverProvider.class.getClassLoader(),
+			interfaces.toArray(new Class<?>[interfaces.size()]),
+			(proxy, method, args) -> {
+				// the proxy is its own identity, so it can be compared and hashed like any driver
+				if (method.getDeclaringClass() == Object.class) {
+					switch (method.getName()) {
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "toString":
+						return "script-free " + webDriver;
+					}
+				}
+				try {
+					return method.invoke(webDriver, args);
+				} catch (InvocationTargetException ite) {
+					throw ite.getCause();
+				}
+			}
+		);
+	}
+}
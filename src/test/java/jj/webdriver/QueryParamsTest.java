@@ -41,5 +41,26 @@ public class QueryParamsTest {
 			is("something=nothing&other+thing=everything")
 		);
 	}
+	
+	@Test
+	public void testImmutable() {
+		QueryParams base = query("name1", "value1");
+		QueryParams more = base.and("name2", "value2");
+		QueryParams combined = base.and(query("name3", "value3"));
+		
+		assertThat(base.toString(), is("name1=value1"));
+		assertThat(more.toString(), is("name1=value1&name2=value2"));
+		assertThat(combined.toString(), is("name1=value1&name3=value3"));
+		assertThat(base, is(query("name1", "value1")));
+	}
+	
+	@Test
+	public void testEmpty() {
+		assertThat(QueryParams.empty().toString(), is(""));
+		assertTrue(QueryParams.empty().isEmpty());
+		assertThat(QueryParams.empty().and("a", "b").toString(), is("a=b"));
+		assertThat(query("a", "b").and(QueryParams.empty()).toString(), is("a=b"));
+		assertThat(QueryParams.empty().and(query("a", "b")).toString(), is("a=b"));
+	}
 
 }
@@ -0,0 +1,113 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * @author jason
+ *
+ */
+public class SessionSnapshotTest {
+
+	WebDriver webDriver;
+	WebDriver.Options options;
+
+	Cookie session = new Cookie("session", "abc123");
+	Cookie theme = new Cookie("theme", "dark");
+
+	@Before
+	public void before() {
+		webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+		options = mock(WebDriver.Options.class);
+		given(webDriver.manage()).willReturn(options);
+		given(webDriver.getCurrentUrl()).willReturn("http://localhost:8080/home");
+	}
+
+	@Test
+	public void testCaptureAndRestore() {
+
+		given(options.getCookies()).willReturn(new HashSet<>(Arrays.asList(session, theme)));
+		given(((JavascriptExecutor)webDriver).executeScript(anyString())).willReturn(Arrays.asList(
+			Collections.singletonMap("token", "t"),
+			Collections.singletonMap("tab", 2L)
+		));
+
+		SessionSnapshot snapshot = SessionSnapshot.capture(webDriver);
+
+		assertThat(snapshot.url(), is("http://localhost:8080/home"));
+		assertThat(snapshot.cookies(), containsInAnyOrder(session, theme));
+		assertThat(snapshot.localStorage(), hasEntry("token", "t"));
+		assertThat(snapshot.sessionStorage(), hasEntry("tab", "2"));
+
+		snapshot.restore(webDriver);
+
+		verify(options).deleteAllCookies();
+		verify(options).addCookie(session);
+		verify(options).addCookie(theme);
+		verify((JavascriptExecutor)webDriver).executeScript(anyString(), eq(snapshot.localStorage()), eq(snapshot.sessionStorage()));
+	}
+
+	@Test
+	public void testCaptureWithoutScripting() {
+
+		WebDriver plainDriver = mock(WebDriver.class);
+		given(plainDriver.manage()).willReturn(options);
+		given(options.getCookies()).willReturn(Collections.singleton(session));
+
+		SessionSnapshot snapshot = SessionSnapshot.capture(plainDriver);
+
+		assertThat(snapshot.cookies(), contains(session));
+		assertThat(snapshot.localStorage(), is(Collections.<String, String>emptyMap()));
+		assertThat(snapshot.sessionStorage(), is(Collections.<String, String>emptyMap()));
+	}
+
+	@Test
+	public void testSnapshotIsImmutable() {
+
+		given(options.getCookies()).willReturn(new HashSet<>(Arrays.asList(session)));
+
+		SessionSnapshot snapshot = SessionSnapshot.capture(webDriver);
+
+		boolean threw = true;
+		try {
+			snapshot.cookies().add(theme);
+			threw = false;
+		} catch (UnsupportedOperationException uoe) {}
+		assertTrue("cookies were modifiable", threw);
+
+		Map<String, String> localStorage = snapshot.localStorage();
+		threw = true;
+		try {
+			localStorage.put("a", "b");
+			threw = false;
+		} catch (UnsupportedOperationException uoe) {}
+		assertTrue("storage was modifiable", threw);
+	}
+}
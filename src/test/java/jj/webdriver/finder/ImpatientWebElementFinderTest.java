@@ -0,0 +1,62 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.finder;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+
+/**
+ * @author jason
+ *
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ImpatientWebElementFinderTest {
+	
+	@Mock Logger logger;
+	@Mock WebDriver webDriver;
+	
+	By by = By.id("missing");
+
+	@Test
+	public void testConfiguredTimeoutIsTheWholeWait() {
+		
+		given(webDriver.findElement(by)).willThrow(new NoSuchElementException("not here"));
+		
+		long start = System.currentTimeMillis();
+		String message = null;
+		try {
+			new ImpatientWebElementFinder(logger).find(webDriver, by, 300, 50);
+		} catch (AssertionError ae) {
+			message = ae.getMessage();
+		}
+		
+		assertThat(message, containsString("after 300ms"));
+		assertThat(System.currentTimeMillis() - start, is(lessThan(550L)));
+		verifyZeroInteractions(logger);
+	}
+}
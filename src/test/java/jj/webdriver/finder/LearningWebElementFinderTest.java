@@ -0,0 +1,133 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.finder;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import jj.webdriver.WebElementFinder;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+
+/**
+ * @author jason
+ *
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class LearningWebElementFinderTest {
+	
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Mock WebElementFinder delegate;
+	@Mock WebDriver webDriver;
+	@Mock WebElement webElement;
+	@Mock Logger logger;
+	
+	By by = By.id("results");
+	
+	Path file;
+	LatencyStore store;
+	
+	@Before
+	public void before() throws Exception {
+		file = folder.getRoot().toPath().resolve("latencies.txt");
+		store = LatencyStore.at(file);
+	}
+
+	@Test
+	public void testLearnsDeadlines() {
+		
+		LearningWebElementFinder finder = new LearningWebElementFinder(delegate, store, logger);
+		given(delegate.find(webDriver, by, -1, -1)).willReturn(webElement);
+		
+		// not enough history yet, so the delegate decides
+		assertThat(finder.find(webDriver, by), is(webElement));
+		assertThat(finder.deadline(by), is(-1L));
+		
+		for (int i = 0; i < 10; ++i) {
+			store.record("By.id: results", 100 * (i + 1));
+		}
+		
+		// p99 is 1000, plus half again
+		assertThat(finder.deadline(by), is(1500L));
+		given(delegate.find(webDriver, by, 1500, -1)).willReturn(webElement);
+		assertThat(finder.find(webDriver, by), is(webElement));
+		
+		// explicit timeouts win
+		given(delegate.find(webDriver, by, 20000, 100)).willReturn(webElement);
+		assertThat(finder.find(webDriver, by, 20000, 100), is(webElement));
+		verify(delegate).find(webDriver, by, 20000, 100);
+	}
+	
+	@Test
+	public void testFallsBackToTheDefaultAfterFailure() {
+		
+		for (int i = 0; i < 5; ++i) {
+			store.record("By.id: results", 10);
+		}
+		LearningWebElementFinder finder = new LearningWebElementFinder(delegate, store, logger);
+		assertThat(finder.deadline(by), is(510L));
+		
+		given(delegate.find(webDriver, by, 510, -1)).willThrow(new AssertionError("not found"));
+		
+		boolean threw = true;
+		try {
+			finder.find(webDriver, by);
+			threw = false;
+		} catch (AssertionError ae) {}
+		assertTrue("swallowed the failure", threw);
+		
+		// no inflated deadline, just the delegate's default
+		assertThat(store.failures("By.id: results"), is(1));
+		assertThat(store.percentile("By.id: results", 99), is(10L));
+		assertThat(finder.deadline(by), is(-1L));
+		
+		// and a lookup under the default that fails again teaches nothing
+		given(delegate.find(webDriver, by, -1, -1)).willThrow(new AssertionError("still not found"));
+		try {
+			finder.find(webDriver, by);
+		} catch (AssertionError ae) {}
+		assertThat(store.count("By.id: results"), is(6));
+	}
+	
+	@Test
+	public void testPersists() throws Exception {
+		
+		store.record("By.id: results", 42);
+		store.record("By.cssSelector: div\tp", 7);
+		store.save();
+		
+		assertThat(
+			new String(Files.readAllBytes(file), StandardCharsets.UTF_8),
+			allOf(containsString("By.id: results\t42"), containsString("By.cssSelector: div p\t7"))
+		);
+	}
+}
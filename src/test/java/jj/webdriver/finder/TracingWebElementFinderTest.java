@@ -0,0 +1,127 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.finder;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import jj.webdriver.TraceListener;
+import jj.webdriver.WebElementFinder;
+import jj.webdriver.listener.Timeline;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * @author jason
+ *
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TracingWebElementFinderTest {
+	
+	@Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Mock WebDriver webDriver;
+	@Mock WebElement webElement;
+	
+	By by = By.id("results");
+	
+	Timeline timeline = new Timeline();
+	
+	// looks twice, like a finder that has to wait
+	WebElementFinder delegate = new WebElementFinder() {
+		
+		@Override
+		public WebElement find(WebDriver webDriver, By by) {
+			try {
+				webDriver.findElement(by);
+			} catch (NoSuchElementException nsee) {}
+			return webDriver.findElement(by);
+		}
+	};
+
+	@Test
+	public void testTracesLookupsAndPolls() throws Exception {
+		
+		given(webDriver.findElement(by)).willThrow(new NoSuchElementException("not yet")).willReturn(webElement);
+		
+		assertThat(new TracingWebElementFinder(delegate, Collections.<TraceListener>singleton(timeline)).find(webDriver, by, 500, 10), is(webElement));
+		
+		assertThat(timeline.size(), is(3));
+		
+		Path file = timeline.write(temporaryFolder.getRoot().toPath().resolve("trace.json")).get();
+		
+		JsonArray events = new JsonParser().parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8))
+			.getAsJsonObject()
+			.getAsJsonArray("traceEvents");
+		
+		assertThat(events.size(), is(3));
+		
+		JsonObject poll = events.get(0).getAsJsonObject();
+		assertThat(poll.get("ph").getAsString(), is("X"));
+		assertThat(poll.get("cat").getAsString(), is(TraceListener.FINDER));
+		assertThat(poll.get("name").getAsString(), is("poll"));
+		
+		JsonObject find = events.get(2).getAsJsonObject();
+		assertThat(find.get("name").getAsString(), is("find"));
+		assertThat(find.getAsJsonObject("args").get("subject").getAsString(), is(delegate.getClass().getName()));
+		assertThat(find.getAsJsonObject("args").get("target").getAsString(), is("By.id: results"));
+		
+		// the lookup covers its polls
+		double findStart = find.get("ts").getAsDouble();
+		double findEnd = findStart + find.get("dur").getAsDouble();
+		for (int i = 0; i < 2; ++i) {
+			double pollStart = events.get(i).getAsJsonObject().get("ts").getAsDouble();
+			assertTrue("poll outside of its lookup", pollStart >= findStart && pollStart <= findEnd);
+		}
+	}
+	
+	@Test
+	public void testRecordsActions() throws Exception {
+		
+		timeline.finished(TraceListener.ACTION, "jj.webdriver.pages.TestPage", "click", By.id("hi"), System.nanoTime(), 1500, new AssertionError("said \"no\""));
+		
+		Path file = timeline.write(temporaryFolder.getRoot().toPath().resolve("trace.json")).get();
+		
+		JsonObject click = new JsonParser().parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8))
+			.getAsJsonObject()
+			.getAsJsonArray("traceEvents")
+			.get(0).getAsJsonObject();
+		
+		assertThat(click.get("cat").getAsString(), is(TraceListener.ACTION));
+		assertThat(click.get("name").getAsString(), is("TestPage click"));
+		assertThat(click.get("dur").getAsDouble(), is(1.5));
+		assertThat(click.getAsJsonObject("args").get("failure").getAsString(), is("java.lang.AssertionError: said \"no\""));
+	}
+}
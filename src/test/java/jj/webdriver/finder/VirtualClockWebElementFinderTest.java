@@ -0,0 +1,107 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.finder;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import jj.webdriver.WebElementFinder;
+import jj.webdriver.listener.VirtualClock;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * @author jason
+ *
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class VirtualClockWebElementFinderTest {
+	
+	@Mock WebElementFinder delegate;
+	@Mock VirtualClock clock;
+	@Mock WebDriver webDriver;
+	@Mock WebElement webElement;
+	
+	By by = By.id("results");
+
+	@Test
+	public void testFiresTimersUntilFound() {
+		
+		given(webElement.isDisplayed()).willReturn(true);
+		given(webDriver.findElements(by)).willReturn(
+			Collections.<WebElement>emptyList(),
+			Collections.<WebElement>emptyList(),
+			Arrays.asList(webElement)
+		);
+		given(clock.fireNext(anyLong())).willReturn(300L);
+		given(delegate.find(webDriver, by)).willReturn(webElement);
+		
+		assertThat(new VirtualClockWebElementFinder(delegate, clock).find(webDriver, by), is(webElement));
+		
+		verify(clock, times(2)).fireNext(anyLong());
+		verify(delegate).find(webDriver, by);
+	}
+	
+	@Test
+	public void testFallsBackWhenNoTimersArePending() {
+		
+		given(webDriver.findElements(by)).willReturn(Collections.<WebElement>emptyList());
+		given(clock.fireNext(anyLong())).willReturn(-1L);
+		given(delegate.find(webDriver, by)).willReturn(webElement);
+		
+		assertThat(new VirtualClockWebElementFinder(delegate, clock).find(webDriver, by), is(webElement));
+		
+		verify(clock).fireNext(anyLong());
+		verify(delegate).find(webDriver, by);
+	}
+	
+	@Test
+	public void testStopsAtTheTimeBudget() {
+		
+		// a page timer with nothing to do with the element, due every nine seconds
+		given(webDriver.findElements(by)).willReturn(Collections.<WebElement>emptyList());
+		given(clock.fireNext(anyLong())).willAnswer(invocation -> (Long)invocation.getArguments()[0] >= 9000L ? 9000L : -1L);
+		given(delegate.find(webDriver, by)).willReturn(webElement);
+		
+		assertThat(new VirtualClockWebElementFinder(delegate, clock).find(webDriver, by), is(webElement));
+		
+		// three fire, then there isn't enough of the budget left for another
+		verify(clock, times(3)).fireNext(10000L);
+		verify(clock).fireNext(3000L);
+		verify(clock, times(4)).fireNext(anyLong());
+		verify(delegate).find(webDriver, by);
+	}
+	
+	@Test
+	public void testFindAllFiresNothing() {
+		
+		given(delegate.findAll(webDriver, by)).willReturn(Collections.<WebElement>emptyList());
+		
+		assertThat(new VirtualClockWebElementFinder(delegate, clock).findAll(webDriver, by).isEmpty(), is(true));
+		
+		verifyZeroInteractions(clock);
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.listener;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author jason
+ *
+ */
+public class TimelineTest {
+	
+	@Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Test
+	public void testMicros() {
+		
+		assertThat(Timeline.micros(0), is("0.000"));
+		assertThat(Timeline.micros(1500), is("1.500"));
+		assertThat(Timeline.micros(1000042), is("1000.042"));
+		
+		// spans can start before the timeline does
+		assertThat(Timeline.micros(-500), is("-0.500"));
+		assertThat(Timeline.micros(-1), is("-0.001"));
+		assertThat(Timeline.micros(-1500), is("-1.500"));
+	}
+	
+	@Test
+	public void testWriteFailures() throws Exception {
+		
+		try {
+			new Timeline().write(temporaryFolder.getRoot().toPath().resolve("missing").resolve("trace.json")).get();
+			fail("wrote to a directory that isn't there");
+		} catch (ExecutionException ee) {
+			assertThat(ee.getCause(), is(instanceOf(UncheckedIOException.class)));
+		}
+	}
+}
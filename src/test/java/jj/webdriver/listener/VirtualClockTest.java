@@ -0,0 +1,125 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.listener;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import jj.webdriver.WebDriverProvider;
+import jj.webdriver.WebDriverRule;
+import jj.webdriver.pages.ClockPage;
+
+import org.junit.AfterClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * runs the clock in a page with scripting, in the same JVM
+ * 
+ * @author jason
+ *
+ */
+public class VirtualClockTest {
+	
+	public static class ScriptingHtmlUnitWebDriverProvider implements WebDriverProvider {
+		
+		@Override
+		public WebDriver get() {
+			HtmlUnitDriver webDriver = new HtmlUnitDriver(BrowserVersion.CHROME);
+			webDriver.setJavascriptEnabled(true);
+			return webDriver;
+		}
+	}
+	
+	private static final HttpServer server = start();
+	
+	private static HttpServer start() {
+		try {
+			HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			server.createContext("/clock", exchange -> respond(exchange,
+				"<html><head><title>clock</title></head><body>" +
+				"<p id='status'>waiting</p>" +
+				"<button id='start' onclick='later()'>start</button>" +
+				"<script>" +
+				"function later() {" +
+					"setTimeout(function () {" +
+						"document.getElementById('status').innerHTML = 'done';" +
+						"var p = document.createElement('p');" +
+						"p.id = 'later';" +
+						"p.innerHTML = 'later';" +
+						"document.body.appendChild(p);" +
+					"}, 5000);" +
+				"}" +
+				"</script>" +
+				"</body></html>"
+			));
+			server.start();
+			return server;
+		} catch (IOException ioe) {
+			throw new AssertionError(ioe);
+		}
+	}
+	
+	private static void respond(HttpExchange exchange, String html) throws IOException {
+		byte[] body = html.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+	
+	@AfterClass
+	public static void afterClass() {
+		server.stop(0);
+	}
+	
+	@Rule
+	public WebDriverRule webDriverRule = new WebDriverRule()
+		.baseUrl("http://localhost:" + server.getAddress().getPort())
+		.driverProvider(ScriptingHtmlUnitWebDriverProvider.class)
+		.virtualClock(true)
+		.snapshotReads(60000)
+		.screenshotOnError(false);
+	
+	@Test
+	public void testFiringTimersInvalidatesSnapshots() {
+		
+		ClockPage page = webDriverRule.get(ClockPage.class).clickStart();
+		
+		// taken from a snapshot of the document
+		assertThat(page.readStatus(), is("waiting"));
+		
+		// which doesn't have this yet, so the finder fires the timer to make it
+		long start = System.currentTimeMillis();
+		assertThat(page.readLater(), is("later"));
+		assertTrue("waited in real time", System.currentTimeMillis() - start < 5000);
+		
+		// and the snapshot is gone with it
+		assertThat(page.readStatus(), is("done"));
+	}
+}
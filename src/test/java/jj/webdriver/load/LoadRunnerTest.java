@@ -0,0 +1,163 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.load;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+import jj.webdriver.WebDriverProvider;
+import jj.webdriver.WebElementFinder;
+import jj.webdriver.pages.StaticApp;
+import jj.webdriver.pages.StaticPage;
+import jj.webdriver.pages.TestPage;
+import jj.webdriver.panel.PointlessPanelBase;
+import jj.webdriver.provider.HtmlUnitWebDriverProvider;
+
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @author jason
+ *
+ */
+public class LoadRunnerTest {
+	
+	public static class MockWebDriverProvider implements WebDriverProvider {
+		
+		@Override
+		public WebDriver get() {
+			WebDriver webDriver = mock(WebDriver.class);
+			WebElement webElement = mock(WebElement.class);
+			given(webDriver.getCurrentUrl()).willReturn("http://localhost:8080/");
+			given(webDriver.findElement(any(By.class))).willReturn(webElement);
+			given(webDriver.findElement(By.id("missing"))).willThrow(new NoSuchElementException("missing"));
+			given(webElement.getTagName()).willReturn("div");
+			given(webElement.getText()).willReturn("text");
+			return webDriver;
+		}
+	}
+	
+	public static class DirectWebElementFinder implements WebElementFinder {
+		
+		@Override
+		public WebElement find(WebDriver webDriver, By by) {
+			return webDriver.findElement(by);
+		}
+	}
+	
+	private LoadRunner loadRunner() {
+		return new LoadRunner()
+			.driverProvider(MockWebDriverProvider.class)
+			.webElementFinder(DirectWebElementFinder.class)
+			// implementations are generated once per JVM, so this has to agree with the other tests
+			.panelBaseClass(PointlessPanelBase.class);
+	}
+
+	@Test
+	public void testRun() {
+		
+		LoadReport report = loadRunner()
+			.users(4)
+			.rampUp(100)
+			.iterations(3)
+			.run(user -> {
+				assertThat(user.get(TestPage.class).clickHi().setBlast("user " + user.id()).readSlow(), is("text"));
+			});
+		
+		assertThat(report.users(), is(4));
+		assertThat(report.failures(), is(empty()));
+		// the last user starts three quarters of the way through the ramp up
+		assertThat(report.elapsedMillis(), is(greaterThanOrEqualTo(75L)));
+		
+		assertThat(report.step(LoadReport.JOURNEY).count(), is(12));
+		assertThat(report.step(LoadReport.JOURNEY).failures(), is(0));
+		
+		LoadReport.Step click = report.step("TestPage click By.id: hi");
+		assertThat(click, is(notNullValue()));
+		assertThat(click.count(), is(12));
+		assertThat(click.throughput(), is(greaterThan(0.0)));
+		assertThat(click.percentile(50), is(lessThanOrEqualTo(click.percentile(99))));
+		assertThat(click.percentile(99), is(lessThanOrEqualTo(click.max())));
+		
+		assertThat(report.step("TestPage set By.className: blast").count(), is(12));
+		assertThat(report.step("TestPage read By.id: slow").count(), is(12));
+		
+		assertThat(report.toString(), containsString("TestPage click By.id: hi"));
+	}
+	
+	@Test
+	public void testFailuresAreCounted() {
+		
+		LoadReport report = loadRunner()
+			.users(2)
+			.iterations(2)
+			.run(user -> {
+				if (user.iteration() == 1) {
+					throw new IllegalStateException("user " + user.id() + " gave up");
+				}
+				user.get(TestPage.class).clickHi();
+			});
+		
+		assertThat(report.step(LoadReport.JOURNEY).count(), is(4));
+		assertThat(report.step(LoadReport.JOURNEY).failures(), is(2));
+		assertThat(report.step("TestPage click By.id: hi").count(), is(2));
+		assertThat(report.failures(), hasSize(2));
+		assertThat(report.failures().get(0).getMessage(), endsWith("gave up"));
+	}
+	
+	@Test
+	public void testRunAgainstAnApp() {
+		
+		HttpServer server = StaticApp.start();
+		try {
+			LoadReport report = new LoadRunner()
+				.baseUrl("http://localhost:" + server.getAddress().getPort())
+				.driverProvider(HtmlUnitWebDriverProvider.class)
+				.users(3)
+				.iterations(2)
+				.run(user -> {
+					StaticPage page = user.get(StaticPage.class);
+					assertThat(page.readItem(user.id() + 1), is(notNullValue()));
+					assertThat(page.setName("user " + user.id()).clickSubmit().readGreeting(), is("hello user " + user.id()));
+				});
+			
+			assertThat(report.failures(), is(empty()));
+			assertThat(report.step(LoadReport.JOURNEY).count(), is(6));
+			
+			// every user's result page is at its own URL, and reads its own item, but they're the same steps
+			assertThat(report.step("StaticResultPage create").count(), is(6));
+			assertThat(report.step("StaticPage read By.xpath: //ul[@class='items']/li[#]").count(), is(6));
+			assertThat(report.step("StaticPage click By.id: submit").count(), is(6));
+			assertThat(report.step("StaticResultPage read By.className: greeting").count(), is(6));
+		} finally {
+			server.stop(0);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.pages;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * a little server-rendered app in the same JVM, serving the {@link StaticPage}
+ * and the {@link StaticResultPage}
+ * 
+ * @author jason
+ *
+ */
+public final class StaticApp {
+	
+	/**
+	 * @return the app, started on any free port
+	 */
+	public static HttpServer start() {
+		try {
+			HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			server.createContext("/static", exchange -> respond(exchange,
+				"<html><head><title>static</title></head><body>" +
+				"<h1 id='title'>Static</h1>" +
+				"<ul class='items'><li>one</li><li>two</li><li>three</li></ul>" +
+				"<form action='/result' method='get'><input type='text' name='name'><input type='submit' id='submit' value='go'></form>" +
+				"<a class='result' href='/result?name=link'>link</a>" +
+				"</body></html>"
+			));
+			server.createContext("/result", exchange -> {
+				String query = exchange.getRequestURI().getRawQuery();
+				String name = query == null ? "nobody" : URLDecoder.decode(query.substring(query.indexOf('=') + 1), "UTF-8");
+				respond(exchange, "<html><body><p class='greeting'>hello " + name + "</p></body></html>");
+			});
+			server.start();
+			return server;
+		} catch (IOException ioe) {
+			throw new AssertionError(ioe);
+		}
+	}
+	
+	private static void respond(HttpExchange exchange, String html) throws IOException {
+		byte[] body = html.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+	
+	private StaticApp() {}
+}
@@ -0,0 +1,50 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.pages;
+
+import java.util.List;
+
+import jj.webdriver.By;
+import jj.webdriver.Page;
+import jj.webdriver.URL;
+
+/**
+ * a server-rendered page with no scripting, for the in-JVM driver
+ * 
+ * @author jason
+ *
+ */
+@URL("/static")
+public interface StaticPage extends Page {
+	
+	@By(id = "title")
+	String readTitle();
+	
+	@By(cssSelector = "ul.items > li")
+	List<String> readItems();
+	
+	@By(xpath = "//ul[@class='items']/li[%d]")
+	String readItem(int position);
+	
+	@By(cssSelector = "input[name='name']")
+	StaticPage setName(String name);
+	
+	@By(id = "submit")
+	StaticResultPage clickSubmit();
+	
+	@By(xpath = "//a[@class='result']")
+	StaticResultPage clickLink();
+}
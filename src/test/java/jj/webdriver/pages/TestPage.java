@@ -16,6 +16,7 @@
 package jj.webdriver.pages;
 
 import jj.webdriver.By;
+import jj.webdriver.Input;
 import jj.webdriver.Page;
 import jj.webdriver.URL;
 
@@ -35,6 +36,14 @@ public interface TestPage extends Page {
 	@By(className = "blast")
 	TestPage setBlast(String blast);
 	
+	@By("notes")
+	@Input(Input.Mode.ASSIGN)
+	TestPage setNotes(String notes);
+	
+	@By("search")
+	@Input(Input.Mode.KEYSTROKES)
+	TestPage setSearch(String search);
+	
 	@By(id = "something")
 	TestPage2 clickSomething();
 	
@@ -43,4 +52,13 @@ public interface TestPage extends Page {
 	
 	@By("best-")
 	TestPanel bestPanel();
+	
+	@By("ready-")
+	TestReadyPanel readyPanel();
+	
+	@By(className = "ready-root")
+	TestReadyPanel rootedReadyPanel();
+	
+	@By(id = "slow", timeout = 30000, poll = 1000)
+	String readSlow();
 }
\ No newline at end of file
@@ -15,7 +15,16 @@
  */
 package jj.webdriver.pages;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import jj.webdriver.Attribute;
 import jj.webdriver.By;
+import jj.webdriver.Outcome;
+import jj.webdriver.Outcomes;
+import jj.webdriver.Paging;
 import jj.webdriver.Panel;
 
 /**
@@ -53,5 +62,55 @@ public interface TestPanel extends Panel {
 	
 	@By("user-%d")
 	String readUsers(int index);
+	
+	@By("user")
+	String readDataUserIdAttribute();
+	
+	@By("user")
+	@Attribute({"title", "value"})
+	Map<String, String> readUserDetails();
+	
+	@By("user")
+	TestModel readUserModel();
+	
+	@By("user")
+	boolean hasUser();
+	
+	@By("user-%d")
+	boolean isUserPresent(int index);
+	
+	@By(className = "spinner", timeout = 300, poll = 10)
+	TestPanel awaitSpinnerGone();
+	
+	@By("submit")
+	@Outcome(value = TestPage2.class, when = @By(id = "welcome"))
+	@Outcome(value = TestRowPanel.class, when = @By(className = "error"))
+	Panel clickSubmitForOutcome();
+	
+	@Outcomes(value = {
+		@Outcome(value = TestRowPanel.class, when = @By(className = "error"))
+	}, timeout = 200)
+	TestRowPanel awaitError();
+	
+	@By(className = "row")
+	List<TestRowPanel> rows();
+	
+	@By(cssSelector = "div.row:nth-child(%d)")
+	TestRowPanel row(int index);
+	
+	@By(cssSelector = "li.item")
+	List<String> readItems();
+	
+	@By(className = "row")
+	@Paging(next = @By(id = "next-page"))
+	Stream<TestRowPanel> pagedRows();
+	
+	@By(cssSelector = "li.item")
+	@Paging(next = @By("more"), chunk = 1)
+	Iterator<String> readPagedItems();
+	
+	@By(cssSelector = "li.item")
+	@Paging(next = @By("more"))
+	Stream<String> readItemStream();
 
 }
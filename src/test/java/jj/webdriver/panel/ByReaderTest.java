@@ -39,13 +39,21 @@ public class ByReaderTest {
 		private final String className;
 		private final String selector;
 		private final String xpath;
+		private final long timeout;
+		private final long poll;
 		
 		FakeBy(String value, String id, String className, String selector, String xpath) {
+			this(value, id, className, selector, xpath, -1, -1);
+		}
+		
+		FakeBy(String value, String id, String className, String selector, String xpath, long timeout, long poll) {
 			this.value = value == null ? "" : value;
 			this.id = id == null ? "" : id;
 			this.className = className == null ? "" : className;
 			this.selector = selector == null ? "" : selector;
 			this.xpath = xpath == null ? "" : xpath;
+			this.timeout = timeout;
+			this.poll = poll;
 		}
 
 		@Override
@@ -77,6 +85,16 @@ public class ByReaderTest {
 		public String xpath() {
 			return xpath;
 		}
+		
+		@Override
+		public long timeout() {
+			return timeout;
+		}
+		
+		@Override
+		public long poll() {
+			return poll;
+		}
 	}
 
 	@Test
@@ -122,6 +140,12 @@ public class ByReaderTest {
 		assertThat(br.type(), is("xpath"));
 		assertThat(br.validateValueAsFormatterFor(), is(true));
 		assertThat(br.value(), is("jay"));
+		assertThat(br.hasTiming(), is(false));
+		
+		br = new ByReader(new FakeBy("", "jay", "", "", "", 500, -1));
+		assertThat(br.hasTiming(), is(true));
+		assertThat(br.timeout(), is(500L));
+		assertThat(br.poll(), is(-1L));
 	}
 
 	
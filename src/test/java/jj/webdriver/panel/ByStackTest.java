@@ -16,10 +16,12 @@
 package jj.webdriver.panel;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.*;
 import jj.webdriver.panel.ByStack;
 
 import org.junit.Test;
+import org.openqa.selenium.By;
 
 /**
  * @author jason
@@ -38,5 +40,20 @@ public class ByStackTest {
 		assertThat(b2.push("second-").resolve("name2"), is("first-second-name2"));
 		
 	}
+	
+	@Test
+	public void testFlyweights() {
+		ByStack root = ByStack.root();
+		
+		assertThat(root.push("first-"), is(sameInstance(root.push("first-"))));
+		assertThat(root.push("first-").push("second-"), is(sameInstance(root.push("first-").push("second-"))));
+		
+		String name = "name";
+		assertThat(root.resolve(name), is(sameInstance(name)));
+		
+		By by = root.push("first-").id("name");
+		assertThat(by, is(By.id("first-name")));
+		assertThat(root.push("first-").id("name"), is(sameInstance(by)));
+	}
 
 }
@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.openqa.selenium.By;
+
+/**
+ * @author jason
+ *
+ */
+public class CommandBatchTest {
+
+	@Test
+	public void testSelectors() {
+		assertThat(CommandBatch.selector(By.id("some-id")), is(arrayContaining("css", "[id=\"some-id\"]")));
+		assertThat(CommandBatch.selector(By.name("q\"uote")), is(arrayContaining("css", "[name=\"q\\\"uote\"]")));
+		assertThat(CommandBatch.selector(By.className("row")), is(arrayContaining("css", "[class~=\"row\"]")));
+		assertThat(CommandBatch.selector(By.cssSelector("div.row > a")), is(arrayContaining("css", "div.row > a")));
+		assertThat(CommandBatch.selector(By.tagName("input")), is(arrayContaining("css", "input")));
+		assertThat(CommandBatch.selector(By.xpath("//a[1]")), is(arrayContaining("xpath", "//a[1]")));
+		assertThat(CommandBatch.selector(new TimedBy(By.id("slow"), 100, 10)), is(arrayContaining("css", "[id=\"slow\"]")));
+		
+		// the finder has to handle these
+		assertThat(CommandBatch.selector(By.linkText("home")), is(nullValue()));
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * @author jason
+ *
+ */
+public class DomSnapshotTest {
+	
+	WebDriver webDriver;
+	
+	Map<String, Object> elements = new HashMap<>();
+	
+	@Before
+	public void before() {
+		webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+		given(((JavascriptExecutor)webDriver).executeScript(anyString())).willReturn(elements);
+		
+		Map<String, Object> attributes = new HashMap<>();
+		attributes.put("class", "big");
+		attributes.put("value", "typed");
+		attributes.put("checked", null);
+		elements.put("name", Arrays.asList("input", "typed", true, attributes));
+		elements.put("title", Arrays.asList("h1", "Title", true, new HashMap<>()));
+		elements.put("hidden", Arrays.asList("div", "", false, new HashMap<>()));
+	}
+
+	@Test
+	public void testAnswers() {
+		
+		DomSnapshot snapshot = new DomSnapshot(10000);
+		
+		assertTrue(snapshot.knows(webDriver, By.id("name")));
+		assertThat(snapshot.read(By.id("name")), is("typed"));
+		assertTrue(snapshot.has(By.id("name"), "class"));
+		assertThat(snapshot.attribute(By.id("name"), "class"), is("big"));
+		assertTrue(snapshot.has(By.id("name"), "checked"));
+		assertThat(snapshot.attribute(By.id("name"), "checked"), is(nullValue()));
+		// might be a property with a value, so it's up to the driver
+		assertFalse(snapshot.has(By.id("name"), "title"));
+		
+		assertTrue(snapshot.knows(webDriver, new TimedBy(By.id("title"), 100, 10)));
+		assertThat(snapshot.read(By.id("title")), is("Title"));
+		
+		// one script for all of that
+		verify((JavascriptExecutor)webDriver).executeScript(anyString());
+	}
+	
+	@Test
+	public void testDoesNotAnswer() {
+		
+		DomSnapshot snapshot = new DomSnapshot(10000);
+		
+		// the driver would wait for these
+		assertFalse(snapshot.knows(webDriver, By.id("hidden")));
+		assertFalse(snapshot.knows(webDriver, By.id("not-there-yet")));
+		// and only ids are indexed
+		assertFalse(snapshot.knows(webDriver, By.className("big")));
+		assertFalse(snapshot.knows(mock(WebDriver.class), By.id("title")));
+	}
+	
+	@Test
+	public void testInvalidation() throws Exception {
+		
+		DomSnapshot snapshot = new DomSnapshot(50);
+		
+		snapshot.knows(webDriver, By.id("title"));
+		snapshot.invalidate();
+		snapshot.knows(webDriver, By.id("title"));
+		
+		verify((JavascriptExecutor)webDriver, times(2)).executeScript(anyString());
+		
+		Thread.sleep(60);
+		snapshot.knows(webDriver, By.id("title"));
+		
+		verify((JavascriptExecutor)webDriver, times(3)).executeScript(anyString());
+	}
+}
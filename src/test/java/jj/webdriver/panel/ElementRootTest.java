@@ -0,0 +1,80 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+
+import jj.webdriver.WebElementFinder;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * @author jason
+ *
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ElementRootTest {
+	
+	@Mock WebDriver webDriver;
+	@Mock WebElementFinder finder;
+	@Mock WebElement stale;
+	@Mock WebElement fresh;
+	@Mock WebElement child;
+	
+	By by = By.id("dialog");
+	By childBy = By.className("ok");
+
+	@Test
+	public void testRelocatesWhenStale() {
+		
+		given(finder.find(webDriver, by)).willReturn(stale, fresh);
+		given(stale.findElement(childBy)).willReturn(child).willThrow(new StaleElementReferenceException("re-rendered"));
+		given(fresh.findElement(childBy)).willReturn(child);
+		
+		ElementRoot root = new ElementRoot(webDriver, finder, null, by);
+		
+		assertThat(root.findElement(childBy), is(child));
+		assertThat(root.findElement(childBy), is(child));
+		
+		verify(finder, times(2)).find(webDriver, by);
+		verify(fresh).findElement(childBy);
+	}
+	
+	@Test
+	public void testRelocatesByPosition() {
+		
+		given(stale.findElements(childBy)).willThrow(new StaleElementReferenceException("re-rendered"));
+		given(finder.findAll(webDriver, by)).willReturn(Arrays.asList(child, fresh));
+		given(fresh.findElements(childBy)).willReturn(Arrays.asList(child));
+		
+		ElementRoot root = new ElementRoot(webDriver, finder, null, by, 1, stale);
+		
+		assertThat(root.findElements(childBy), is(Arrays.asList(child)));
+		
+		verify(finder).findAll(webDriver, by);
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javassist.CtMethod;
+import jj.webdriver.By;
+import jj.webdriver.Panel;
+import jj.webdriver.WebElementFinder;
+import jj.webdriver.generator.PanelMethodGeneratorsModule;
+import jj.webdriver.panel.GenerationDiagnostics.InterfaceRecord;
+import jj.webdriver.panel.GenerationDiagnostics.MethodRecord;
+import jj.webdriver.panel.URLBase.BaseURL;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
+
+/**
+ * @author jason
+ *
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class GenerationDiagnosticsTest {
+	
+	// generated nowhere else, since implementations are only generated once per JVM
+	public interface DiagnosedPanel extends Panel {
+		
+		@By("name")
+		String readName();
+		
+		@By("save")
+		DiagnosedPanel clickSave();
+	}
+	
+	// generated nowhere else either, and can't be
+	public interface BrokenPanel extends Panel {
+		
+		@By("name")
+		String readName();
+		
+		void explode();
+	}
+	
+	// claims explode and gives it a body that doesn't compile
+	private static final class BrokenGenerator extends PanelMethodGenerator {
+		
+		@Override
+		protected boolean matches(CtMethod newMethod, CtMethod baseMethod) throws Exception {
+			return baseMethod.getName().equals("explode");
+		}
+		
+		@Override
+		protected void generateMethod(CtMethod newMethod, CtMethod baseMethod) throws Exception {
+			setBody(newMethod, new StringBuilder("{ this is not java; }"));
+		}
+	}
+	
+	@Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Mock WebDriver webDriver;
+	@Mock WebElementFinder finder;
+	@Mock Logger logger;
+
+	private PanelFactory panelFactory(GenerationDiagnostics diagnostics) {
+		return Guice.createInjector(
+			new AbstractModule() {
+				
+				@Override
+				protected void configure() {
+					bind(new TypeLiteral<Class<? extends PanelBase>>() {}).toInstance(PointlessPanelBase.class);
+					bind(WebDriver.class).toInstance(webDriver);
+					bind(WebElementFinder.class).toInstance(finder);
+					bind(Logger.class).toInstance(logger);
+					bind(String.class).annotatedWith(BaseURL.class).toInstance("http://localhost:8080");
+					bind(GenerationDiagnostics.class).toInstance(diagnostics);
+					Multibinder.newSetBinder(binder(), PanelMethodGenerator.class).addBinding().toInstance(new BrokenGenerator());
+				}
+			},
+			new PanelMethodGeneratorsModule()
+		).getInstance(PanelFactory.class);
+	}
+
+	@Test
+	public void testRecordsAndDumpsGeneration() throws Exception {
+		
+		Path dumpDir = temporaryFolder.getRoot().toPath();
+		GenerationDiagnostics diagnostics = new GenerationDiagnostics(dumpDir);
+		
+		PanelFactory panelFactory = panelFactory(diagnostics);
+		
+		panelFactory.create(DiagnosedPanel.class);
+		// already generated, so nothing more to record
+		panelFactory.create(DiagnosedPanel.class);
+		
+		assertThat(diagnostics.interfaces().size(), is(1));
+		
+		InterfaceRecord record = diagnostics.interfaces().get(0);
+		assertThat(record.panelInterface(), is(DiagnosedPanel.class.getName()));
+		assertThat(record.panelBase(), is(PointlessPanelBase.class.getName()));
+		assertThat(record.methods().size(), is(2));
+		assertThat(record.failure(), is(nullValue()));
+		
+		long methodNanos = 0;
+		for (MethodRecord method : record.methods()) {
+			methodNanos += method.nanos();
+			assertTrue(method + " wasn't timed", method.nanos() > 0);
+			assertTrue(method + " tried nothing", method.tried() > 0);
+			if (method.method().equals("readName()")) {
+				assertThat(method.generator(), is("jj.webdriver.generator.ReadMethodGenerator"));
+				assertThat(method.body(), containsString("\"name\""));
+			} else {
+				assertThat(method.method(), is("clickSave()"));
+				assertThat(method.generator(), is("jj.webdriver.generator.ClickMethodGenerator"));
+			}
+		}
+		assertTrue("the interface took less time than its methods", record.nanos() >= methodNanos);
+		
+		String dump = new String(Files.readAllBytes(diagnostics.dumpFile(DiagnosedPanel.class.getName())), StandardCharsets.UTF_8);
+		assertThat(dump, containsString("// " + DiagnosedPanel.class.getName()));
+		assertThat(dump, containsString("// readName() by jj.webdriver.generator.ReadMethodGenerator"));
+		assertThat(dump, containsString(record.methods().get(0).body()));
+		
+		assertThat(diagnostics.toString(), containsString("generated 1 interfaces with 2 methods"));
+	}
+	
+	@Test
+	public void testRecordsAndDumpsFailedGeneration() throws Exception {
+		
+		GenerationDiagnostics diagnostics = new GenerationDiagnostics(temporaryFolder.getRoot().toPath());
+		
+		try {
+			panelFactory(diagnostics).create(BrokenPanel.class);
+			fail("generated something that doesn't compile");
+		} catch (AssertionError ae) {
+			// the body is the first thing anyone will want to see
+			Throwable cause = ae;
+			while (cause.getCause() != null && !cause.getMessage().contains("failed to generate")) {
+				cause = cause.getCause();
+			}
+			assertThat(cause.getMessage(), containsString("{ this is not java; }"));
+		}
+		
+		assertThat(diagnostics.interfaces().size(), is(1));
+		
+		InterfaceRecord record = diagnostics.interfaces().get(0);
+		assertThat(record.panelInterface(), is(BrokenPanel.class.getName()));
+		assertThat(record.failure(), containsString("explode"));
+		
+		MethodRecord broken = record.methods().get(record.methods().size() - 1);
+		assertThat(broken.method(), is("explode()"));
+		assertThat(broken.body(), is("{ this is not java; }"));
+		
+		String dump = new String(Files.readAllBytes(diagnostics.dumpFile(BrokenPanel.class.getName())), StandardCharsets.UTF_8);
+		assertThat(dump, containsString("// failed with "));
+		assertThat(dump, containsString("{ this is not java; }"));
+	}
+}
@@ -15,27 +15,56 @@
  */
 package jj.webdriver.panel;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.*;
 import static org.mockito.BDDMockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import jj.webdriver.Page;
+import jj.webdriver.PageLoadListener;
 import jj.webdriver.WebElementFinder;
 import jj.webdriver.generator.PanelMethodGeneratorsModule;
 import jj.webdriver.pages.TestModel;
 import jj.webdriver.pages.TestPage;
 import jj.webdriver.pages.TestPage2;
+import jj.webdriver.pages.TestPanel;
+import jj.webdriver.pages.TestReadyPage;
+import jj.webdriver.pages.TestRowPanel;
 import jj.webdriver.panel.PanelBase;
 import jj.webdriver.panel.PanelFactory;
+import jj.webdriver.panel.PanelFactory.AssignInputs;
+import jj.webdriver.panel.PanelFactory.BatchCommands;
+import jj.webdriver.panel.PanelFactory.ReusePanels;
+import jj.webdriver.panel.PanelFactory.SnapshotReads;
 import jj.webdriver.panel.URLBase.BaseURL;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.slf4j.Logger;
@@ -44,6 +73,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.Multibinder;
 
 /**
  * <p>
@@ -72,6 +102,8 @@ public class PanelFactoryTest {
 	
 	@Mock Logger logger;
 	
+	@Mock PageLoadListener pageLoadListener;
+	
 	TestPage page;
 	
 	PanelFactory panelFactory;
@@ -79,22 +111,7 @@ public class PanelFactoryTest {
 	@Before
 	public void before() throws Exception {
 		
-		Injector injector = Guice.createInjector(
-			new AbstractModule() {
-			
-				@Override
-				protected void configure() {
-					bind(new TypeLiteral<Class<? extends PanelBase>>() {}).toInstance(PointlessPanelBase.class);
-					bind(WebDriver.class).toInstance(webDriver);
-					bind(WebElementFinder.class).toInstance(finder);
-					bind(Logger.class).toInstance(logger);
-					bind(String.class).annotatedWith(BaseURL.class).toInstance("http://localhost:8080");
-				}
-			},
-			new PanelMethodGeneratorsModule()
-		);
-		
-		panelFactory = injector.getInstance(PanelFactory.class);
+		panelFactory = options().panelFactory();
 		
 		given(webDriver.getCurrentUrl()).willReturn("url");
 		
@@ -110,6 +127,73 @@ public class PanelFactoryTest {
 		
 	}
 	
+	private FactoryOptions options() {
+		return new FactoryOptions();
+	}
+	
+	/**
+	 * builds a factory against the mocks, configured the way a test needs it. everything
+	 * not mentioned is left at its default
+	 */
+	private final class FactoryOptions {
+		
+		private WebDriver driver = webDriver;
+		private boolean reusePanels = false;
+		private boolean batchCommands = false;
+		private long snapshotReads = 0;
+		private boolean assignInputs = false;
+		
+		FactoryOptions driver(WebDriver driver) {
+			this.driver = driver;
+			return this;
+		}
+		
+		FactoryOptions reusePanels() {
+			reusePanels = true;
+			return this;
+		}
+		
+		FactoryOptions batchCommands() {
+			batchCommands = true;
+			return this;
+		}
+		
+		FactoryOptions snapshotReads(long ttlMillis) {
+			snapshotReads = ttlMillis;
+			return this;
+		}
+		
+		FactoryOptions assignInputs() {
+			assignInputs = true;
+			return this;
+		}
+		
+		PanelFactory panelFactory() {
+			
+			Injector injector = Guice.createInjector(
+				new AbstractModule() {
+				
+					@Override
+					protected void configure() {
+						bind(new TypeLiteral<Class<? extends PanelBase>>() {}).toInstance(PointlessPanelBase.class);
+						bind(WebDriver.class).toInstance(driver);
+						bind(WebElementFinder.class).toInstance(finder);
+						bind(Logger.class).toInstance(logger);
+						bind(String.class).annotatedWith(BaseURL.class).toInstance("http://localhost:8080");
+						bindConstant().annotatedWith(ReusePanels.class).to(reusePanels);
+						bindConstant().annotatedWith(BatchCommands.class).to(batchCommands);
+						bindConstant().annotatedWith(SnapshotReads.class).to(snapshotReads);
+						bindConstant().annotatedWith(AssignInputs.class).to(assignInputs);
+						Multibinder.newSetBinder(binder(), PageLoadListener.class).addBinding().toInstance(pageLoadListener);
+					}
+				},
+				new PanelMethodGeneratorsModule()
+			);
+			
+			return injector.getInstance(PanelFactory.class);
+		}
+	}
+	
 	@Test
 	public void testPageBase() {
 		
@@ -156,6 +240,18 @@ public class PanelFactoryTest {
 		verify(webElement).sendKeys("blast");
 	}
 	
+	@Test
+	public void testLocatorTiming() {
+		
+		given(finder.find(webDriver, By.id("slow"), 30000L, 1000L)).willReturn(webElement);
+		given(webElement.getTagName()).willReturn("div");
+		given(webElement.getText()).willReturn("finally");
+		
+		assertThat(page.readSlow(), is("finally"));
+		
+		verify(finder).find(webDriver, By.id("slow"), 30000L, 1000L);
+	}
+	
 	@Test
 	public void testNavigation() {
 		
@@ -171,9 +267,103 @@ public class PanelFactoryTest {
 		assertThat(page1.testPanel(), is(notNullValue()));
 	}
 	
+	@Test
+	public void testPageLoadListeners() {
+		
+		by(By.id("something"));
+		
+		given(webDriver.getCurrentUrl()).willReturn("http://localhost:8080/page2");
+		TestPage2 page2 = page.clickSomething();
+		given(webDriver.getCurrentUrl()).willReturn("http://localhost:8080/");
+		page2.clickSomething().testPanel();
+		
+		// once for each page, but not for the panel
+		verify(pageLoadListener, times(3)).pageLoaded(webDriver);
+	}
+	
+	@Test
+	public void testNavigationToTheWrongPage() {
+		
+		by(By.id("something"));
+		
+		given(webDriver.getCurrentUrl()).willReturn("http://localhost:8080/error");
+		
+		long start = System.currentTimeMillis();
+		String message = null;
+		try {
+			page.clickSomething();
+		} catch (AssertionError ae) {
+			message = ae.getMessage();
+		}
+		assertThat(message, containsString("but landed on http://localhost:8080/error"));
+		
+		// failed fast instead of waiting out the timeout
+		assertThat(System.currentTimeMillis() - start, is(lessThan(5000L)));
+		verify(pageLoadListener, times(1)).pageLoaded(webDriver);
+	}
+	
+	@Test
+	public void testReadiness() {
+		
+		given(webDriver.findElements(By.id("content"))).willReturn(Collections.singletonList(webElement));
+		given(webDriver.findElement(By.id("content"))).willReturn(webElement);
+		given(webElement.isDisplayed()).willReturn(true);
+		given(webElement.getTagName()).willReturn("div");
+		given(webElement.getText()).willReturn("hi");
+		
+		TestReadyPage readyPage = panelFactory.create(TestReadyPage.class);
+		
+		assertThat(readyPage.readContent(), is("hi"));
+		
+		// the page was ready, so the finder never got involved
+		verify(finder, never()).find(eq(webDriver), any(By.class));
+		
+		// and nested panels are ready too
+		given(webDriver.findElement(By.id("test-user"))).willThrow(new NoSuchElementException("later"));
+		given(finder.find(webDriver, By.id("test-user"))).willReturn(webElement);
+		assertThat(readyPage.testPanel().readUser(), is("hi"));
+		verify(webDriver).findElement(By.id("test-user"));
+		verify(finder).find(webDriver, By.id("test-user"));
+	}
+	
+	@Test
+	public void testNestedReadinessIsLookedForWithinThePanel() {
+		
+		// pushed onto the hierarchy
+		given(webElement.isDisplayed()).willReturn(true);
+		given(webDriver.findElements(By.id("ready-content"))).willReturn(Collections.singletonList(webElement));
+		
+		assertThat(page.readyPanel(), is(notNullValue()));
+		
+		// rooted at an element
+		ElementRoot root = new ElementRoot(webDriver, finder, null, By.className("ready-root"));
+		given(webDriver.findElements(new ScopedBy(root, By.id("content")))).willReturn(Collections.singletonList(webElement));
+		
+		assertThat(page.rootedReadyPanel(), is(notNullValue()));
+		
+		// and never against the whole document
+		verify(webDriver, never()).findElements(By.id("content"));
+	}
+	
+	@Test
+	public void testReadinessTimesOut() {
+		
+		given(webDriver.findElements(By.id("content"))).willReturn(Collections.<WebElement>emptyList());
+		
+		String message = null;
+		try {
+			panelFactory.create(TestReadyPage.class);
+		} catch (AssertionError ae) {
+			message = ae.getMessage();
+		}
+		assertThat(message, containsString("waiting for jj.webdriver.pages.TestReadyPage to be ready (displayed By.id: content)"));
+	}
+	
 	@Test
 	public void testSetModel() {
 		
+		given(webDriver.getCurrentUrl()).willReturn("http://localhost:8080/page2");
+		
 		TestModel t = new TestModel();
 		t.name = "1";
 		t.email = "2";
@@ -207,6 +397,8 @@ public class PanelFactoryTest {
 	@Test
 	public void testSetModel2() {
 		
+		given(webDriver.getCurrentUrl()).willReturn("http://localhost:8080/page2");
+		
 		TestModel t = new TestModel();
 		t.name = "1";
 		t.email = "2";
@@ -241,6 +433,8 @@ public class PanelFactoryTest {
 	@Test
 	public void testSetModel3() {
 		
+		given(webDriver.getCurrentUrl()).willReturn("http://localhost:8080/page2");
+		
 		
 		TestModel t = new TestModel();
 		t.name = "1";
@@ -278,4 +472,465 @@ public class PanelFactoryTest {
 		assertThat(page.testPanel().readUsers(3), is(value2));
 		assertThat(page.testPanel().readUsers(10), is(value3));
 	}
+	
+	@Test
+	public void testReadAttributes() {
+		
+		given(finder.find(webDriver, By.id("test-user"))).willReturn(webElement);
+		given(webElement.getAttribute("data-user-id")).willReturn("12");
+		given(webElement.getAttribute("title")).willReturn("the user");
+		given(webElement.getAttribute("name")).willReturn("jason");
+		
+		assertThat(page.testPanel().readDataUserIdAttribute(), is("12"));
+		
+		Map<String, String> details = page.testPanel().readUserDetails();
+		assertThat(details.get("title"), is("the user"));
+		assertThat(details.containsKey("value"), is(true));
+		assertThat(details.get("value"), is(nullValue()));
+		
+		TestModel model = page.testPanel().readUserModel();
+		assertThat(model.name, is("jason"));
+		assertThat(model.email, is(nullValue()));
+	}
+	
+	@Test
+	public void testScriptedReadAttributes() {
+		
+		WebDriver scripted = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+		Map<String, Object> values = new HashMap<>();
+		values.put("name", "jason");
+		values.put("email", "jason@example.com");
+		given(((JavascriptExecutor)scripted).executeScript(anyString(), eq(webElement), eq(Arrays.asList("name", "email")))).willReturn(values);
+		given(finder.find(scripted, By.id("test-user"))).willReturn(webElement);
+		
+		TestModel model = options().driver(scripted).panelFactory().create(TestPage.class).testPanel().readUserModel();
+		
+		assertThat(model.name, is("jason"));
+		assertThat(model.email, is("jason@example.com"));
+		verify(finder).find(scripted, By.id("test-user"));
+		verify(webElement, never()).getAttribute(anyString());
+	}
+	
+	@Test
+	public void testPresence() {
+		
+		given(webDriver.findElements(By.id("test-user"))).willReturn(Collections.singletonList(webElement));
+		given(webDriver.findElements(By.id("test-user-4"))).willReturn(Collections.<WebElement>emptyList());
+		
+		assertThat(page.testPanel().hasUser(), is(true));
+		assertThat(page.testPanel().isUserPresent(4), is(false));
+		
+		// no waiting involved
+		verifyZeroInteractions(finder);
+	}
+	
+	@Test
+	public void testAwaitGone() {
+		
+		WebElement hidden = mock(WebElement.class);
+		WebElement stale = mock(WebElement.class);
+		given(webElement.isDisplayed()).willReturn(true);
+		given(stale.isDisplayed()).willThrow(new StaleElementReferenceException("gone"));
+		given(webDriver.findElements(By.className("spinner"))).willReturn(
+			Collections.singletonList(webElement),
+			Arrays.asList(hidden, stale)
+		);
+		
+		TestPanel panel = page.testPanel();
+		assertThat(panel.awaitSpinnerGone(), is(panel));
+		verifyZeroInteractions(finder);
+		
+		given(webDriver.findElements(By.className("spinner"))).willReturn(Collections.singletonList(webElement));
+		
+		String message = null;
+		try {
+			panel.awaitSpinnerGone();
+		} catch (AssertionError ae) {
+			message = ae.getMessage();
+		}
+		assertThat(message, is("element still displayed after 300ms By.className: spinner"));
+	}
+	
+	@Test
+	public void testOutcomes() {
+		
+		by(By.id("test-submit"));
+		given(webElement.isDisplayed()).willReturn(true);
+		given(webDriver.findElements(By.id("welcome"))).willReturn(Collections.<WebElement>emptyList());
+		given(webDriver.findElements(By.className("error"))).willReturn(
+			Collections.<WebElement>emptyList(),
+			Collections.singletonList(webElement)
+		);
+		
+		assertThat(page.testPanel().clickSubmitForOutcome(), is(instanceOf(TestRowPanel.class)));
+		verify(webElement).click();
+		
+		given(webDriver.findElements(By.id("welcome"))).willReturn(Collections.singletonList(webElement));
+		given(webDriver.getCurrentUrl()).willReturn("http://localhost:8080/page2");
+		
+		assertThat(page.testPanel().clickSubmitForOutcome(), is(instanceOf(TestPage2.class)));
+		
+		given(webDriver.findElements(By.className("error"))).willReturn(Collections.<WebElement>emptyList());
+		
+		String message = null;
+		try {
+			page.testPanel().awaitError();
+		} catch (AssertionError ae) {
+			message = ae.getMessage();
+		}
+		assertThat(message, is("none of the outcomes appeared within 200ms [By.className: error]"));
+	}
+	
+	@Test
+	public void testPanelList() {
+		
+		WebElement row1 = mock(WebElement.class);
+		WebElement row2 = mock(WebElement.class);
+		given(finder.findAll(webDriver, By.className("row"))).willReturn(Arrays.asList(row1, row2));
+		ElementRoot root2 = new ElementRoot(webDriver, finder, null, By.className("row"), 1, row2);
+		given(finder.find(webDriver, new ScopedBy(root2, By.className("cell")))).willReturn(webElement);
+		given(finder.find(webDriver, new ScopedBy(root2, By.className("remove")))).willReturn(webElement);
+		given(webElement.getTagName()).willReturn("td");
+		given(webElement.getText()).willReturn("cell 2");
+		
+		List<TestRowPanel> rows = page.testPanel().rows();
+		
+		assertThat(rows.size(), is(2));
+		assertThat(rows.get(1).readCell(), is("cell 2"));
+		assertThat(rows.get(1).clickRemove(), is(rows.get(1)));
+		
+		verify(finder).findAll(webDriver, By.className("row"));
+		verify(webElement).click();
+	}
+	
+	@Test
+	public void testRootedPanel() {
+		
+		By rowBy = By.cssSelector("div.row:nth-child(3)");
+		ElementRoot root = new ElementRoot(webDriver, finder, null, rowBy);
+		given(finder.find(webDriver, new ScopedBy(root, By.className("cell")))).willReturn(webElement);
+		given(webElement.getTagName()).willReturn("td");
+		given(webElement.getText()).willReturn("cell 3");
+		
+		assertThat(page.testPanel().row(3).readCell(), is("cell 3"));
+		
+		// the container itself is only located when the finder searches within it
+		verify(finder, never()).find(webDriver, rowBy);
+	}
+	
+	@Test
+	public void testPanelReuse() {
+		
+		// off by default, every call is a new panel
+		assertThat(page.testPanel(), is(not(sameInstance(page.testPanel()))));
+		
+		PanelFactory reusingFactory = options().reusePanels().panelFactory();
+		TestPage reusing = reusingFactory.create(TestPage.class);
+		
+		TestPanel testPanel = reusing.testPanel();
+		assertThat(reusing.testPanel(), is(sameInstance(testPanel)));
+		assertThat(reusing.bestPanel(), is(not(sameInstance(testPanel))));
+		assertThat(testPanel.row(3), is(sameInstance(testPanel.row(3))));
+		assertThat(testPanel.row(3), is(not(sameInstance(testPanel.row(4)))));
+		
+		// a new page starts over
+		TestPage next = reusingFactory.create(TestPage.class);
+		assertThat(next.testPanel(), is(not(sameInstance(testPanel))));
+	}
+	
+	@Test
+	public void testBatchedCommands() {
+		
+		By blast = by(By.className("blast"));
+		By hi = by(By.id("hi"));
+		
+		PanelFactory batchingFactory = options().batchCommands().panelFactory();
+		TestPage batching = batchingFactory.create(TestPage.class);
+		
+		assertThat(batching.setBlast("blast").clickHi(), is(batching));
+		
+		verify(finder, never()).find(webDriver, blast);
+		verify(finder, never()).find(webDriver, hi);
+		
+		batchingFactory.flush();
+		
+		InOrder inOrder = inOrder(webElement);
+		inOrder.verify(webElement).sendKeys("blast");
+		inOrder.verify(webElement).click();
+		
+		// reading flushes too
+		given(finder.find(webDriver, By.id("slow"), 30000L, 1000L)).willReturn(webElement);
+		given(webElement.getTagName()).willReturn("div");
+		given(webElement.getText()).willReturn("done");
+		
+		assertThat(batching.clickHi().readSlow(), is("done"));
+		
+		verify(webElement, times(2)).click();
+	}
+	
+	@Test
+	public void testAssignedInputs() {
+		
+		WebDriver scripted = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+		given(finder.find(any(WebDriver.class), any(By.class))).willReturn(webElement);
+		
+		// by method
+		TestPage typing = options().driver(scripted).panelFactory().create(TestPage.class);
+		typing.setBlast("typed").setNotes("assigned");
+		
+		verify(webElement).sendKeys("typed");
+		verify((JavascriptExecutor)scripted).executeScript(anyString(), eq(webElement), eq("assigned"));
+		
+		// by configuration, unless the method insists
+		TestPage assigning = options().driver(scripted).assignInputs().panelFactory().create(TestPage.class);
+		assigning.setBlast("blast").setSearch("search");
+		
+		verify((JavascriptExecutor)scripted).executeScript(anyString(), eq(webElement), eq("blast"));
+		verify(webElement).sendKeys("search");
+		verify(webElement, never()).sendKeys("blast");
+		
+		// drivers that can't run scripts type everything
+		TestPage plain = options().assignInputs().panelFactory().create(TestPage.class);
+		plain.setNotes("notes");
+		
+		verify(webElement).sendKeys("notes");
+	}
+	
+	@Test
+	public void testBatchedCommandFailure() {
+		
+		given(finder.find(webDriver, By.id("hi"))).willThrow(new NoSuchElementException("no hi"));
+		
+		PanelFactory batchingFactory = options().batchCommands().panelFactory();
+		batchingFactory.create(TestPage.class).clickHi();
+		
+		AssertionError failure = null;
+		try {
+			batchingFactory.flush();
+		} catch (AssertionError ae) {
+			failure = ae;
+		}
+		
+		assertThat(failure, is(notNullValue()));
+		assertThat(failure.getMessage(), is("batched click on [" + TEST_PAGE_NAME + "] By.id: hi failed: element not found"));
+		
+		// reported from where the command was made, not where it was carried out
+		boolean fromHere = false;
+		for (StackTraceElement element : failure.getStackTrace()) {
+			fromHere |= element.getMethodName().equals("testBatchedCommandFailure");
+		}
+		assertTrue("the failure didn't point at the test", fromHere);
+	}
+	
+	@Test
+	public void testScriptedBatch() {
+		
+		WebDriver scripted = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+		given(finder.find(scripted, By.className("blast"))).willReturn(webElement);
+		// the first command is done, then the second has to be waited for
+		given(((JavascriptExecutor)scripted).executeScript(anyString(), any(List.class))).willReturn(
+			Arrays.asList(1L, "missing"),
+			Arrays.asList(1L)
+		);
+		
+		PanelFactory batchingFactory = options().driver(scripted).batchCommands().assignInputs().panelFactory();
+		batchingFactory.create(TestPage.class).clickHi().setBlast("blast");
+		
+		batchingFactory.flush();
+		
+		verify((JavascriptExecutor)scripted, times(2)).executeScript(anyString(), any(List.class));
+		verify(finder, never()).find(scripted, By.id("hi"));
+		verify(finder).find(scripted, By.className("blast"));
+		verify(webElement, never()).sendKeys(anyString());
+	}
+	
+	@Test
+	public void testScriptedBatchTypesUnlessAssigning() {
+		
+		WebDriver scripted = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+		// the click is done, then the set is handed back to be typed, which finishes the batch
+		given(((JavascriptExecutor)scripted).executeScript(anyString(), any(List.class))).willReturn(
+			Arrays.asList(1L, "type", webElement)
+		);
+		
+		PanelFactory batchingFactory = options().driver(scripted).batchCommands().panelFactory();
+		batchingFactory.create(TestPage.class).clickHi().setBlast("blast");
+		
+		batchingFactory.flush();
+		
+		verify((JavascriptExecutor)scripted, times(1)).executeScript(anyString(), any(List.class));
+		verify(finder, never()).find(scripted, By.className("blast"));
+		verify(webElement).sendKeys("blast");
+	}
+	
+	@Test
+	public void testScriptedBatchLocatesStaleContainersAgain() {
+		
+		WebDriver scripted = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+		WebElement staleRow = mock(WebElement.class);
+		WebElement freshRow = mock(WebElement.class);
+		given(finder.find(scripted, By.cssSelector("div.row:nth-child(3)"))).willReturn(staleRow, freshRow);
+		given(((JavascriptExecutor)scripted).executeScript(anyString(), any(List.class)))
+			.willThrow(new StaleElementReferenceException("re-rendered"))
+			.willReturn(Arrays.asList(1L));
+		
+		PanelFactory batchingFactory = options().driver(scripted).batchCommands().panelFactory();
+		batchingFactory.create(TestPage.class).testPanel().row(3).clickRemove();
+		
+		batchingFactory.flush();
+		
+		// the row was handed over as it was first located, then as it was located again
+		@SuppressWarnings("rawtypes")
+		ArgumentCaptor<List> specs = ArgumentCaptor.forClass(List.class);
+		verify((JavascriptExecutor)scripted, times(2)).executeScript(anyString(), specs.capture());
+		assertThat(((List<?>)specs.getAllValues().get(0).get(0)).get(5), is(staleRow));
+		assertThat(((List<?>)specs.getAllValues().get(1).get(0)).get(5), is(freshRow));
+	}
+	
+	@Test
+	public void testScriptedBatchStaleTwice() {
+		
+		WebDriver scripted = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+		given(finder.find(scripted, By.cssSelector("div.row:nth-child(3)"))).willReturn(webElement);
+		given(((JavascriptExecutor)scripted).executeScript(anyString(), any(List.class))).willThrow(new StaleElementReferenceException("re-rendered"));
+		
+		PanelFactory batchingFactory = options().driver(scripted).batchCommands().panelFactory();
+		batchingFactory.create(TestPage.class).testPanel().row(3).clickRemove();
+		
+		AssertionError failure = null;
+		try {
+			batchingFactory.flush();
+		} catch (AssertionError ae) {
+			failure = ae;
+		}
+		
+		assertThat(failure, is(notNullValue()));
+		assertThat(failure.getMessage(), is("batched click on [jj.webdriver.pages.TestRowPanel] By.className: remove failed: element went stale"));
+		assertThat(failure.getCause(), is(instanceOf(StaleElementReferenceException.class)));
+		
+		boolean fromHere = false;
+		for (StackTraceElement element : failure.getStackTrace()) {
+			fromHere |= element.getMethodName().equals("testScriptedBatchStaleTwice");
+		}
+		assertTrue("the failure didn't point at the test", fromHere);
+	}
+	
+	@Test
+	public void testSnapshotReads() {
+		
+		WebDriver scripted = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+		given(((JavascriptExecutor)scripted).executeScript(anyString())).willReturn(
+			Collections.singletonMap("slow", Arrays.asList("div", "first", true, Collections.emptyMap())),
+			Collections.singletonMap("slow", Arrays.asList("div", "second", true, Collections.emptyMap()))
+		);
+		given(finder.find(scripted, By.id("hi"))).willReturn(webElement);
+		
+		TestPage snapshotting = options().driver(scripted).snapshotReads(10000).panelFactory().create(TestPage.class);
+		
+		assertThat(snapshotting.readSlow(), is("first"));
+		assertThat(snapshotting.readSlow(), is("first"));
+		verify((JavascriptExecutor)scripted).executeScript(anyString());
+		
+		// clicking might change anything
+		assertThat(snapshotting.clickHi().readSlow(), is("second"));
+		verify((JavascriptExecutor)scripted, times(2)).executeScript(anyString());
+		
+		verify(finder, never()).find(scripted, By.id("slow"), 30000L, 1000L);
+	}
+	
+	@Test
+	public void testReadList() {
+		
+		WebElement item1 = mock(WebElement.class);
+		WebElement item2 = mock(WebElement.class);
+		given(finder.findAll(webDriver, By.cssSelector("li.item"))).willReturn(Arrays.asList(item1, item2));
+		given(item1.getTagName()).willReturn("li");
+		given(item1.getText()).willReturn("one");
+		given(item2.getTagName()).willReturn("input");
+		given(item2.getAttribute("value")).willReturn("two");
+		
+		assertThat(page.testPanel().readItems(), is(Arrays.asList("one", "two")));
+		
+		verify(finder).findAll(webDriver, By.cssSelector("li.item"));
+	}
+	
+	private WebElement pageControl() {
+		WebElement control = mock(WebElement.class);
+		given(control.isDisplayed()).willReturn(true);
+		given(control.isEnabled()).willReturn(true);
+		return control;
+	}
+	
+	@Test
+	public void testPanelStream() {
+		
+		WebElement row1 = mock(WebElement.class);
+		WebElement row2 = mock(WebElement.class);
+		WebElement row3 = mock(WebElement.class);
+		given(row1.isEnabled()).willThrow(new StaleElementReferenceException("paged"));
+		given(finder.findAll(webDriver, By.className("row"))).willReturn(Arrays.asList(row1, row2), Arrays.asList(row3));
+		WebElement next = pageControl();
+		given(webDriver.findElements(By.id("next-page"))).willReturn(Arrays.asList(next), Collections.<WebElement>emptyList());
+		given(finder.find(webDriver, new ScopedBy(row3, By.className("cell")))).willReturn(webElement);
+		given(webElement.getTagName()).willReturn("td");
+		given(webElement.getText()).willReturn("cell 3");
+		
+		List<TestRowPanel> rows = page.testPanel().pagedRows().collect(Collectors.toList());
+		
+		assertThat(rows.size(), is(3));
+		assertThat(rows.get(2).readCell(), is("cell 3"));
+		verify(next).click();
+		verify(webDriver, times(2)).findElements(By.id("next-page"));
+	}
+	
+	@Test
+	public void testPanelStreamStopsEarly() {
+		
+		WebElement row1 = mock(WebElement.class);
+		WebElement row2 = mock(WebElement.class);
+		given(finder.findAll(webDriver, By.className("row"))).willReturn(Arrays.asList(row1, row2));
+		
+		assertThat(page.testPanel().pagedRows().limit(2).count(), is(2L));
+		
+		verify(webDriver, never()).findElements(By.id("next-page"));
+	}
+	
+	@Test
+	public void testReadIterator() {
+		
+		WebElement item1 = mock(WebElement.class);
+		WebElement item2 = mock(WebElement.class);
+		given(item1.isEnabled()).willThrow(new StaleElementReferenceException("paged"));
+		given(item1.getTagName()).willReturn("li");
+		given(item1.getText()).willReturn("one");
+		given(item2.getTagName()).willReturn("li");
+		given(item2.getText()).willReturn("two");
+		given(finder.findAll(webDriver, By.cssSelector("li.item"))).willReturn(Arrays.asList(item1), Arrays.asList(item2));
+		WebElement more = pageControl();
+		given(webDriver.findElements(By.id("test-more"))).willReturn(Arrays.asList(more), Collections.<WebElement>emptyList());
+		
+		Iterator<String> items = page.testPanel().readPagedItems();
+		
+		assertThat(items.next(), is("one"));
+		verify(more, never()).click();
+		assertThat(items.next(), is("two"));
+		verify(more).click();
+		assertFalse(items.hasNext());
+	}
+	
+	@Test
+	public void testReadStreamKeepsNulls() {
+		
+		WebElement item1 = mock(WebElement.class);
+		WebElement item2 = mock(WebElement.class);
+		given(item1.getTagName()).willReturn("input");
+		given(item2.getTagName()).willReturn("li");
+		given(item2.getText()).willReturn("two");
+		given(finder.findAll(webDriver, By.cssSelector("li.item"))).willReturn(Arrays.asList(item1, item2));
+		
+		Stream<String> items = page.testPanel().readItemStream();
+		
+		assertFalse(items.spliterator().hasCharacteristics(Spliterator.NONNULL));
+		assertThat(page.testPanel().readItemStream().collect(Collectors.toList()), is(Arrays.asList(null, "two")));
+	}
 }
@@ -0,0 +1,137 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+
+/**
+ * @author jason
+ *
+ */
+public class ScriptLibraryTest {
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	private HtmlUnitDriver scripting(BrowserVersion browserVersion) throws Exception {
+		Path page = temporaryFolder.newFile("text.html").toPath();
+		Files.write(page, (
+			"<html><body>" +
+			"<p id='spaces'>  one&nbsp;&nbsp;two \t three  </p>" +
+			"<div id='blocks'><p>four</p><p>  five  six</p></div>" +
+			"<p id='leading'>&nbsp;seven</p>" +
+			"<input id='input' value=' eight '>" +
+			"</body></html>"
+		).getBytes(StandardCharsets.UTF_8));
+		
+		HtmlUnitDriver webDriver = new HtmlUnitDriver(browserVersion);
+		webDriver.setJavascriptEnabled(true);
+		webDriver.get(page.toUri().toString());
+		return webDriver;
+	}
+
+	@Test
+	public void testInstallsWhenMissing() {
+		
+		WebDriver webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+		JavascriptExecutor executor = (JavascriptExecutor)webDriver;
+		given(executor.executeScript(anyString(), eq("arg"))).willReturn("pandia:missing", "result", "again");
+		
+		assertThat(ScriptLibrary.call(webDriver, ScriptLibrary.READ_ALL, "arg"), is("result"));
+		
+		// the library went along with the second try
+		verify(executor).executeScript(startsWith(ScriptLibrary.SOURCE), eq("arg"));
+		
+		// and not after that
+		assertThat(ScriptLibrary.call(webDriver, ScriptLibrary.READ_ALL, "arg"), is("again"));
+		verify(executor, times(1)).executeScript(startsWith(ScriptLibrary.SOURCE), eq("arg"));
+		verify(executor, times(3)).executeScript(anyString(), eq("arg"));
+	}
+	
+	@Test
+	public void testCallsAreSmall() {
+		
+		WebDriver webDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+		given(((JavascriptExecutor)webDriver).executeScript(anyString())).willReturn("ok");
+		
+		ScriptLibrary.call(webDriver, ScriptLibrary.SNAPSHOT);
+		
+		ArgumentCaptor<String> script = ArgumentCaptor.forClass(String.class);
+		verify((JavascriptExecutor)webDriver).executeScript(script.capture());
+		
+		assertThat(script.getValue().length(), is(lessThan(150)));
+		assertThat(script.getValue(), containsString(ScriptLibrary.VERSION));
+		assertThat(script.getValue(), not(containsString("querySelectorAll")));
+	}
+	
+	@Test
+	public void testReadsTextLikeTheDriver() throws Exception {
+		
+		HtmlUnitDriver webDriver = scripting(BrowserVersion.CHROME);
+		try {
+			List<WebElement> elements = webDriver.findElements(By.cssSelector("[id]"));
+			
+			List<?> texts = (List<?>)ScriptLibrary.call(webDriver, ScriptLibrary.READ_ALL, elements);
+			
+			assertThat(texts, contains("one  two three", "four\nfive six", " seven", " eight "));
+			for (int i = 0; i < 3; ++i) {
+				assertThat(texts.get(i), is(elements.get(i).getText()));
+			}
+		} finally {
+			webDriver.quit();
+		}
+	}
+	
+	@Test
+	public void testLeavesTextToTheDriverWithoutInnerText() throws Exception {
+		
+		HtmlUnitDriver webDriver = scripting(BrowserVersion.FIREFOX_38);
+		try {
+			List<WebElement> elements = webDriver.findElements(By.cssSelector("[id]"));
+			
+			List<?> texts = (List<?>)ScriptLibrary.call(webDriver, ScriptLibrary.READ_ALL, elements);
+			
+			assertThat(texts.get(0), is(nullValue()));
+			assertThat(texts.get(3), is(" eight "));
+		} finally {
+			webDriver.quit();
+		}
+	}
+}
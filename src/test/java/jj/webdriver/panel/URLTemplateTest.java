@@ -0,0 +1,101 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.panel;
+
+import static jj.webdriver.QueryParams.query;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.IllegalFormatException;
+import java.util.regex.Pattern;
+
+import jj.webdriver.pages.TestPage2;
+
+import org.junit.Test;
+
+/**
+ * @author jason
+ *
+ */
+public class URLTemplateTest {
+	
+	private static final String BASE = "http://localhost:8080";
+
+	@Test
+	public void testPlain() {
+		assertThat(URLTemplate.of(TestPage2.class).expand(BASE), is("http://localhost:8080/page2"));
+		assertThat(URLTemplate.of(TestPage2.class), is(sameInstance(URLTemplate.of(TestPage2.class))));
+	}
+	
+	@Test
+	public void testConversions() {
+		URLTemplate template = URLTemplate.compile("/users/%s/posts/%d");
+		
+		assertThat(template.expand(BASE, "jay miller", 12), is("http://localhost:8080/users/jay+miller/posts/12"));
+		assertThat(template.expand(BASE, "a", query("sort", "new"), 3L), is("http://localhost:8080/users/a/posts/3?sort=new"));
+		
+		assertThat(URLTemplate.compile("/100%%/%s").expand(BASE, 7), is("http://localhost:8080/100%/7"));
+	}
+	
+	@Test
+	public void testQueryParams() {
+		URLTemplate template = URLTemplate.compile("/search?type=%s");
+		
+		assertThat(
+			template.expand(BASE, "books", query("q", "moon"), query("page", "2")),
+			is("http://localhost:8080/search?type=books&q=moon&page=2")
+		);
+		
+		assertThat(URLTemplate.compile("/").expand(BASE, query("q", "moon")), is("http://localhost:8080/?q=moon"));
+	}
+	
+	@Test
+	public void testFallsBackToFormatter() {
+		assertThat(URLTemplate.compile("/item/%03d").expand(BASE, 7), is("http://localhost:8080/item/007"));
+		assertThat(URLTemplate.compile("/%2$s/%1$s").expand(BASE, "a", "b"), is("http://localhost:8080/b/a"));
+	}
+	
+	@Test
+	public void testMatchesFormatterErrors() {
+		boolean threw = true;
+		try {
+			URLTemplate.compile("/%s/%s").expand(BASE, "one");
+			threw = false;
+		} catch (IllegalFormatException ife) {}
+		assertTrue("didn't complain about a missing argument", threw);
+		
+		threw = true;
+		try {
+			URLTemplate.compile("/%d").expand(BASE, "one");
+			threw = false;
+		} catch (IllegalFormatException ife) {}
+		assertTrue("didn't complain about a bad conversion", threw);
+	}
+	
+	@Test
+	public void testPattern() {
+		Pattern pattern = URLTemplate.compile("/users/%s/posts/%d").pattern(BASE);
+		
+		assertTrue(pattern.matcher("http://localhost:8080/users/a%20b/posts/3").matches());
+		assertTrue(pattern.matcher("http://localhost:8080/users/a/posts/3/?sort=new#top").matches());
+		assertFalse(pattern.matcher("http://localhost:8080/users/a/posts").matches());
+		assertFalse(pattern.matcher("http://localhost:8080/users/a/b/posts/3").matches());
+		
+		assertTrue(URLTemplate.compile("/").pattern(BASE).matcher("http://localhost:8080/").matches());
+		assertTrue(URLTemplate.compile("/search?type=%s").pattern(BASE).matcher("http://localhost:8080/search?type=x&q=1").matches());
+		assertTrue(URLTemplate.compile("/item/%03d").pattern(BASE).matcher("http://localhost:8080/item/007").matches());
+	}
+}
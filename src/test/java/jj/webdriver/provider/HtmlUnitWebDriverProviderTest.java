@@ -0,0 +1,100 @@
+/*
+ *    Copyright 2012 Jason Miller
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package jj.webdriver.provider;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import jj.webdriver.WebDriverRule;
+import jj.webdriver.pages.StaticApp;
+import jj.webdriver.pages.StaticPage;
+import jj.webdriver.pages.StaticResultPage;
+
+import org.junit.AfterClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * runs page objects against a little server-rendered app in the same JVM
+ * 
+ * @author jason
+ *
+ */
+public class HtmlUnitWebDriverProviderTest {
+	
+	private static final HttpServer server = StaticApp.start();
+	
+	@AfterClass
+	public static void afterClass() {
+		server.stop(0);
+	}
+	
+	@Rule
+	public WebDriverRule webDriverRule = new WebDriverRule()
+		.baseUrl("http://localhost:" + server.getAddress().getPort())
+		.driverProvider(HtmlUnitWebDriverProvider.class)
+		.screenshotOnError(false);
+	
+	@Test
+	public void testReading() {
+		
+		StaticPage page = webDriverRule.get(StaticPage.class);
+		
+		assertThat(page.readTitle(), is("Static"));
+		assertThat(page.readItems(), contains("one", "two", "three"));
+		assertThat(page.readItem(2), is("two"));
+	}
+	
+	@Test
+	public void testForms() {
+		
+		StaticResultPage result = webDriverRule.get(StaticPage.class).setName("pandia").clickSubmit();
+		
+		assertThat(result.readGreeting(), is("hello pandia"));
+	}
+	
+	@Test
+	public void testLinks() {
+		
+		assertThat(webDriverRule.get(StaticPage.class).clickLink().readGreeting(), is("hello link"));
+	}
+	
+	@Test
+	public void testNoScripting() {
+		
+		WebDriver webDriver = new HtmlUnitWebDriverProvider().get();
+		try {
+			assertThat(webDriver, is(not(instanceOf(JavascriptExecutor.class))));
+			
+			// the proxy answers for itself, not for the driver it wraps
+			WebDriver another = new HtmlUnitWebDriverProvider().get();
+			try {
+				assertThat(webDriver.equals(webDriver), is(true));
+				assertThat(webDriver.equals(another), is(false));
+				assertThat(webDriver.hashCode(), is(System.identityHashCode(webDriver)));
+				assertThat(webDriver.toString(), startsWith("script-free "));
+			} finally {
+				another.quit();
+			}
+		} finally {
+			webDriver.quit();
+		}
+	}
+}